@@ -0,0 +1,62 @@
+package com.project.libraryapi.benchmark;
+
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.api.mapper.BookMapper;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.repository.BookRepository;
+import com.project.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * One page of {@code GET /api/books}: managed entities copied into DTOs against
+ * the read-only projection path. Run with {@code -prof gc} to compare allocation
+ * per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookListingBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int pageSize;
+
+    private BookService bookService;
+    private BookRepository bookRepository;
+    private BookMapper bookMapper;
+    private Pageable pageRequest;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) {
+        bookService = state.getBean(BookService.class);
+        bookRepository = state.getBean(BookRepository.class);
+        bookMapper = state.getBean(BookMapper.class);
+        pageRequest = PageRequest.of(0, pageSize);
+    }
+
+    @Benchmark
+    public Page<BookDTO> entities() {
+        Page<Book> page = bookRepository.findAll(pageRequest);
+        List<BookDTO> content = page.getContent()
+                .stream()
+                .map(bookMapper::toDTO)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageRequest, page.getTotalElements());
+    }
+
+    @Benchmark
+    public Page<BookView> projections() {
+        return bookService.findViewsByFilters(new Book(), pageRequest);
+    }
+}
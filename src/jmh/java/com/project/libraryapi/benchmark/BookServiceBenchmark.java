@@ -0,0 +1,48 @@
+package com.project.libraryapi.benchmark;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BookService bookService;
+    private long seededRows;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) {
+        bookService = state.getBean(BookService.class);
+        seededRows = state.rows;
+        sequence.set(state.rows);
+    }
+
+    @Benchmark
+    public Book save() {
+        long i = sequence.incrementAndGet();
+        return bookService.save(Book.builder()
+                .title(LibraryState.title(i))
+                .author(LibraryState.author(i))
+                .isbn(LibraryState.isbn(i))
+                .build());
+    }
+
+    @Benchmark
+    public Page<BookView> findViewsByFilters() {
+        Book filter = Book.builder().title(LibraryState.title(seededRows / 2)).build();
+        return bookService.findViewsByFilters(filter, PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,100 @@
+package com.project.libraryapi.benchmark;
+
+import com.project.libraryapi.LibraryApiApplication;
+import com.project.libraryapi.service.cache.IsbnBloomFilter;
+import com.project.libraryapi.service.registry.ActiveLoanRegistry;
+import com.project.libraryapi.service.search.BookSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the application without the web layer against a private in-memory
+ * H2 database and seeds it with {@code rows} books, half of them with a loan
+ * (every other one of those already returned).
+ */
+@State(Scope.Benchmark)
+public class LibraryState {
+
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    @Param({"10000"})
+    public int rows;
+
+    public ConfigurableApplicationContext context;
+    public JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.devtools.restart.enabled=false",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seedBooks();
+        seedLoans();
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(IsbnBloomFilter.class).rebuild();
+        context.getBean(ActiveLoanRegistry.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public static String isbn(long i) {
+        return "isbn-" + i;
+    }
+
+    public static String title(long i) {
+        return "Title " + i;
+    }
+
+    public static String author(long i) {
+        return "Author " + (i % 1000);
+    }
+
+    public static String customer(long i) {
+        return "Customer " + (i % 500);
+    }
+
+    private void seedBooks() {
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long i = 1; i <= rows; i++) {
+            batch.add(new Object[]{i, title(i), author(i), isbn(i)});
+            if (batch.size() == SEED_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate("INSERT INTO book (id, title, author, isbn) VALUES (?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            jdbcTemplate.batchUpdate("INSERT INTO book (id, title, author, isbn) VALUES (?, ?, ?, ?)", batch);
+        jdbcTemplate.execute("ALTER SEQUENCE book_seq RESTART WITH " + (rows + 1));
+    }
+
+    private void seedLoans() {
+        Date loanDate = Date.valueOf(LocalDate.now().minusDays(10));
+        jdbcTemplate.update("INSERT INTO loan (customer, id_book, loan_date, returned, active_book_id)" +
+                " SELECT CONCAT('Customer ', MOD(b.id, 500)), b.id, ?, MOD(b.id, 4) = 0," +
+                " CASE WHEN MOD(b.id, 4) = 0 THEN NULL ELSE b.id END" +
+                " FROM book b WHERE MOD(b.id, 2) = 0", loanDate);
+    }
+}
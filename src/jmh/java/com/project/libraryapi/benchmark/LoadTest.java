@@ -0,0 +1,174 @@
+package com.project.libraryapi.benchmark;
+
+import com.project.libraryapi.LibraryApiApplication;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.service.BookService;
+import com.project.libraryapi.service.LoanService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Closed-loop HTTP load test of the read endpoints, once per request execution
+ * mode: {@code platform} is Tomcat's default worker pool, {@code virtual} the
+ * {@code virtual-threads} profile (Java 21). Every client sends its next request
+ * as soon as the previous one answers, so throughput and p99 show where each
+ * mode saturates.
+ *
+ * <p>Arguments: {@code [modes] [clients] [seconds]}, e.g. {@code platform,virtual 800 30}.
+ * The in-memory H2 database answers in microseconds; pass
+ * {@code -Dloadtest.datasource.url=...} to run against a networked database,
+ * which is the I/O-bound case virtual threads are meant for.
+ */
+public class LoadTest {
+
+    private static final int BOOKS = 2_000;
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+
+    public static void main(String[] args) throws Exception {
+        // devtools would otherwise re-run main in a restart class loader without the arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> modes = Arrays.asList((args.length > 0 ? args[0] : "platform,virtual").split(","));
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 20);
+
+        System.out.printf("%-9s %8s %12s %10s %10s %10s %8s%n", "mode", "clients", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (String mode : modes) {
+            try (ConfigurableApplicationContext context = start(mode)) {
+                seed(context);
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                run(baseUrl, clients, WARMUP);
+                Result result = run(baseUrl, clients, duration);
+                System.out.printf("%-9s %8d %12.0f %10.2f %10.2f %10.2f %8d%n", mode, clients,
+                        result.count() / (double) duration.getSeconds(),
+                        result.percentile(0.50), result.percentile(0.99), result.percentile(1.0), result.errors);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mode) {
+        List<String> properties = new ArrayList<>(List.of(
+                "server.port=0",
+                "spring.datasource.url=" + System.getProperty("loadtest.datasource.url",
+                        "jdbc:h2:mem:load-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"),
+                "spring.jpa.show-sql=false",
+                "logging.level.root=WARN"));
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .logStartupInfo(false)
+                .properties(properties.toArray(new String[0]));
+        if ("virtual".equals(mode))
+            builder.profiles("virtual-threads");
+        else if (!"platform".equals(mode))
+            throw new IllegalArgumentException("Unknown mode: " + mode);
+        return builder.run();
+    }
+
+    private static void seed(ConfigurableApplicationContext context) {
+        BookService bookService = context.getBean(BookService.class);
+        LoanService loanService = context.getBean(LoanService.class);
+        List<Book> books = bookService.saveAll(LongStream.rangeClosed(1, BOOKS)
+                .mapToObj(i -> Book.builder()
+                        .isbn(LibraryState.isbn(i))
+                        .title(LibraryState.title(i))
+                        .author(LibraryState.author(i))
+                        .build())
+                .collect(Collectors.toList()));
+        for (int i = 0; i < books.size(); i += 2)
+            loanService.save(Loan.builder()
+                    .book(books.get(i))
+                    .customer(LibraryState.customer(i))
+                    .loanDate(LocalDate.now())
+                    .build());
+    }
+
+    private static Result run(String baseUrl, int clients, Duration duration) throws Exception {
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Math.min(clients, 64)))
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            futures.add(pool.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long[] latencies = new long[1024];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path(random)))
+                            .timeout(Duration.ofSeconds(30))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200)
+                            errors.incrementAndGet();
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (count == latencies.length)
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = System.nanoTime() - start;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        List<long[]> perClient = new ArrayList<>();
+        for (Future<long[]> future : futures)
+            perClient.add(future.get());
+        pool.shutdown();
+        return new Result(perClient, errors.get());
+    }
+
+    private static String path(ThreadLocalRandom random) {
+        long id = random.nextLong(1, BOOKS + 1);
+        switch (random.nextInt(4)) {
+            case 0:
+                return "/api/books/" + id;
+            case 1:
+                return "/api/books/" + id + "/availability";
+            case 2:
+                return "/api/books?title=" + LibraryState.title(id).replace(' ', '+') + "&page=0&size=20";
+            default:
+                return "/api/loans?customer=" + LibraryState.customer(id * 2).replace(' ', '+') + "&page=0&size=20";
+        }
+    }
+
+    private static class Result {
+
+        private final long[] latencies;
+        private final long errors;
+
+        Result(List<long[]> perClient, long errors) {
+            this.latencies = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            this.errors = errors;
+        }
+
+        long count() {
+            return latencies.length;
+        }
+
+        double percentile(double p) {
+            if (latencies.length == 0)
+                return 0;
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
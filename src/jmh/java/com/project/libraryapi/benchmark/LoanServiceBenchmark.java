@@ -0,0 +1,76 @@
+package com.project.libraryapi.benchmark;
+
+import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private LoanService loanService;
+    private JdbcTemplate jdbcTemplate;
+    private long seededRows;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) {
+        loanService = state.getBean(LoanService.class);
+        jdbcTemplate = state.jdbcTemplate;
+        seededRows = state.rows;
+        sequence.set(state.rows);
+    }
+
+    /**
+     * Every loan needs a book nobody holds yet, so one is inserted per invocation
+     * outside of the measured region.
+     */
+    @State(Scope.Thread)
+    public static class FreeBook {
+
+        Book book;
+
+        @Setup(Level.Invocation)
+        public void insert(LoanServiceBenchmark benchmark) {
+            long i = benchmark.sequence.incrementAndGet();
+            Long id = benchmark.jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR book_seq", Long.class);
+            benchmark.jdbcTemplate.update("INSERT INTO book (id, title, author, isbn) VALUES (?, ?, ?, ?)",
+                    id, LibraryState.title(i), LibraryState.author(i), LibraryState.isbn(i));
+            book = Book.builder().id(id).version(0L).isbn(LibraryState.isbn(i)).build();
+        }
+    }
+
+    @Benchmark
+    public Loan save(FreeBook freeBook) {
+        return loanService.save(Loan.builder()
+                .book(freeBook.book)
+                .customer(LibraryState.customer(freeBook.book.getId()))
+                .loanDate(LocalDate.now())
+                .build());
+    }
+
+    @Benchmark
+    public Page<LoanView> findViews() {
+        long i = seededRows / 2;
+        LoanInputDTO filter = LoanInputDTO.builder()
+                .isbn(LibraryState.isbn(i))
+                .customer(LibraryState.customer(i))
+                .build();
+        return loanService.findViews(filter, PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,75 @@
+package com.project.libraryapi.benchmark;
+
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.api.dto.LoanDTO;
+import com.project.libraryapi.api.mapper.BookMapper;
+import com.project.libraryapi.api.mapper.LoanMapper;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.entity.Loan;
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Per-page cost of converting entities to DTOs: the reflective ModelMapper
+ * the controllers used before against the generated MapStruct mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"20", "100", "1000"})
+    int pageSize;
+
+    private ModelMapper modelMapper;
+    private BookMapper bookMapper;
+    private LoanMapper loanMapper;
+
+    private List<Book> books;
+    private List<Loan> loans;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        bookMapper = Mappers.getMapper(BookMapper.class);
+        loanMapper = Mappers.getMapper(LoanMapper.class);
+
+        books = new ArrayList<>(pageSize);
+        loans = new ArrayList<>(pageSize);
+        for (long i = 1; i <= pageSize; i++) {
+            Book book = Book.builder().id(i).title("Title " + i).author("Author " + i).isbn("isbn-" + i).build();
+            books.add(book);
+            loans.add(Loan.builder().id(i).customer("Customer " + i).book(book).loanDate(LocalDate.now()).build());
+        }
+    }
+
+    @Benchmark
+    public List<BookDTO> bookPageModelMapper() {
+        return books.stream().map(book -> modelMapper.map(book, BookDTO.class)).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<BookDTO> bookPageGeneratedMapper() {
+        return books.stream().map(bookMapper::toDTO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loanPageModelMapper() {
+        return loans.stream().map(loan -> modelMapper.map(loan, LoanDTO.class)).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LoanDTO> loanPageGeneratedMapper() {
+        return loans.stream().map(loanMapper::toDTO).collect(Collectors.toList());
+    }
+}
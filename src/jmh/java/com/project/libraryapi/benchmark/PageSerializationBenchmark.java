@@ -0,0 +1,43 @@
+package com.project.libraryapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a {@code Page<BookView>} loaded from the seeded database with
+ * the application's {@link ObjectMapper}, as the book listing endpoint writes it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100", "1000"})
+    int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<BookView> page;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) {
+        objectMapper = state.getBean(ObjectMapper.class);
+        page = state.getBean(BookService.class)
+                .findViewsByFilters(new Book(), PageRequest.of(0, pageSize));
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
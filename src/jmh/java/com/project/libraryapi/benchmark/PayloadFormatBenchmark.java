@@ -0,0 +1,91 @@
+package com.project.libraryapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encoding and decoding of the 1,000-book listing page in each format the book
+ * endpoint negotiates, with and without the gzip the server applies on top.
+ * Payload sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"false", "true"})
+    boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader pageReader;
+    private Page<?> page;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp(LibraryState state) throws IOException {
+        Jackson2ObjectMapperBuilder builder = state.getBean(Jackson2ObjectMapperBuilder.class);
+        switch (format) {
+            case "cbor":
+                objectMapper = builder.factory(new CBORFactory()).build();
+                break;
+            case "smile":
+                objectMapper = builder.factory(new SmileFactory()).build();
+                break;
+            default:
+                objectMapper = builder.build();
+        }
+        pageReader = objectMapper.readerFor(BookPage.class);
+        page = state.getBean(BookService.class).findViewsByFilters(new Book(), PageRequest.of(0, 1000));
+        payload = encode();
+        System.out.printf("%n%s%s: %d bytes for %d books%n", format, gzip ? "+gzip" : "", payload.length, page.getNumberOfElements());
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * 1024);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes) : bytes) {
+            objectMapper.writeValue(out, page);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public BookPage decode() throws IOException {
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(payload)) : new ByteArrayInputStream(payload)) {
+            return pageReader.readValue(in);
+        }
+    }
+
+    /**
+     * What a consumer binds the listing to; the remaining page fields are ignored.
+     */
+    public static class BookPage {
+        public List<BookDTO> content;
+        public long totalElements;
+    }
+}
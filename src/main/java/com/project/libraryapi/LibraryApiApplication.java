@@ -1,16 +1,25 @@
 package com.project.libraryapi;
 
-import org.modelmapper.ModelMapper;
+import com.project.libraryapi.api.mapper.BookMapper;
+import com.project.libraryapi.api.mapper.LoanMapper;
+import org.mapstruct.factory.Mappers;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class LibraryApiApplication {
 
 	@Bean
-	public ModelMapper modelMapper(){
-		return new ModelMapper();
+	public BookMapper bookMapper(){
+		return Mappers.getMapper(BookMapper.class);
+	}
+
+	@Bean
+	public LoanMapper loanMapper(){
+		return Mappers.getMapper(LoanMapper.class);
 	}
 
 	public static void main(String[] args) {
@@ -5,18 +5,27 @@ import org.springframework.web.server.ResponseStatusException;
 
 import com.project.libraryapi.api.exception.ApiErrors;
 import com.project.libraryapi.exception.BusinessException;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.support.WebExchangeBindException;
 
 
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
+    private final BusinessMetrics metrics;
+
+    public ApplicationControllerAdvice(BusinessMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleValidationExceptions(MethodArgumentNotValidException ex){
@@ -24,14 +33,28 @@ public class ApplicationControllerAdvice {
         return new ApiErrors(bindingResult);
     }
 
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiErrors handleValidationExceptions(WebExchangeBindException ex){
+        return new ApiErrors(ex.getBindingResult());
+    }
+
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleBusinessException(BusinessException ex){
         return new ApiErrors(ex);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ApiErrors handleOptimisticLockingFailure(OptimisticLockingFailureException ex){
+        return new ApiErrors("Book was modified since it was read.");
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleBusinessException(ResponseStatusException ex){
+        if (ex.getStatus() == HttpStatus.NOT_FOUND)
+            metrics.notFound();
         return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
     }
 }
@@ -0,0 +1,148 @@
+package com.project.libraryapi.api.compression;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Makes {@code server.compression.min-response-size} hold for the list endpoints.
+ * Their message converters flush the response once the page is written, so Tomcat
+ * commits it chunked, with no length to compare, and gzips it however small it is.
+ * The filter holds back a listing up to the threshold: one that ends within it
+ * goes out with its {@code Content-Length} and uncompressed; a longer one passes
+ * through once it gets there, so no more than the threshold is ever buffered.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIST_PATHS = Set.of("/api/books", "/api/loans", "/api/loans/overdue");
+
+    private final int threshold;
+
+    public CompressionThresholdFilter(@Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize) {
+        this.threshold = (int) minResponseSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod())
+                || !LIST_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ThresholdResponse thresholdResponse = new ThresholdResponse(response, threshold);
+        chain.doFilter(request, thresholdResponse);
+        thresholdResponse.finish();
+    }
+
+    static class ThresholdResponse extends HttpServletResponseWrapper {
+
+        private final int threshold;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private ServletOutputStream outputStream;
+
+        ThresholdResponse(HttpServletResponse response, int threshold) {
+            super(response);
+            this.threshold = threshold;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null)
+                outputStream = new ThresholdOutputStream();
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (buffer == null)
+                super.flushBuffer();
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            if (buffer != null)
+                buffer.reset();
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            if (buffer != null)
+                buffer.reset();
+        }
+
+        /**
+         * Sends a body that stayed within the threshold with its length.
+         */
+        void finish() throws IOException {
+            if (buffer != null && buffer.size() > 0 && !isCommitted())
+                setContentLength(buffer.size());
+            release();
+        }
+
+        private void release() throws IOException {
+            if (buffer == null)
+                return;
+            byte[] held = buffer.toByteArray();
+            buffer = null;
+            if (held.length > 0)
+                getResponse().getOutputStream().write(held);
+        }
+
+        private class ThresholdOutputStream extends ServletOutputStream {
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (buffer == null) {
+                    getResponse().getOutputStream().write(b, off, len);
+                    return;
+                }
+                buffer.write(b, off, len);
+                if (buffer.size() >= threshold)
+                    release();
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (buffer == null)
+                    getResponse().getOutputStream().flush();
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                throw new UnsupportedOperationException("Listings are written blocking.");
+            }
+        }
+    }
+}
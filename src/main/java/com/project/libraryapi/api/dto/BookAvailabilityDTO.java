@@ -0,0 +1,16 @@
+package com.project.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookAvailabilityDTO {
+
+    private Long id;
+    private Boolean available;
+}
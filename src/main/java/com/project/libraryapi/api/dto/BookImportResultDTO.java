@@ -0,0 +1,20 @@
+package com.project.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+
+    private int created;
+    private int rejected;
+    private boolean aborted;
+    private List<BookImportRowDTO> rows;
+}
@@ -0,0 +1,23 @@
+package com.project.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportRowDTO {
+
+    public enum Status { CREATED, DUPLICATED, INVALID, MALFORMED }
+
+    private int row;
+    private String isbn;
+    private Long id;
+    private Status status;
+    private List<String> errors;
+}
@@ -0,0 +1,18 @@
+package com.project.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnDTO {
+
+    private List<Long> ids;
+    private List<String> isbns;
+}
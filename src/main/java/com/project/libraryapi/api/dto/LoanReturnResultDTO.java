@@ -0,0 +1,21 @@
+package com.project.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnResultDTO {
+
+    private int returned;
+    private List<Long> returnedIds;
+    private List<Long> unknownIds;
+    private List<Long> alreadyReturnedIds;
+    private List<String> notBorrowedIsbns;
+}
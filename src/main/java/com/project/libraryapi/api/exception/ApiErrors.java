@@ -21,6 +21,10 @@ public class ApiErrors {
         this.errors = Arrays.asList(ex.getMessage());
     }
 
+    public ApiErrors(String message) {
+        this.errors = Arrays.asList(message);
+    }
+
     public ApiErrors(ResponseStatusException ex) {
         this.errors = Arrays.asList(ex.getReason());
     }
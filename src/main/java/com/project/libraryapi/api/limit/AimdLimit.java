@@ -0,0 +1,79 @@
+package com.project.libraryapi.api.limit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit that adapts to latency, additive increase and multiplicative
+ * decrease: a request slower than the threshold cuts the limit by the backoff
+ * ratio, and a fast one raises it by one while at least half of it is in use, so
+ * an idle bulkhead does not grow without bound. Requests over the limit are
+ * refused rather than queued.
+ */
+public class AimdLimit {
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong rejections = new AtomicLong();
+    private volatile int limit;
+
+    public AimdLimit(String name, int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("Invalid concurrency limits for " + name);
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("Invalid backoff ratio for " + name);
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * @return whether the request may proceed; if so, {@link #release} must follow
+     */
+    public boolean tryAcquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= limit) {
+                rejections.incrementAndGet();
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    public void release(long latencyNanos) {
+        int released = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (latencyNanos > latencyThresholdNanos)
+                limit = Math.max(minLimit, (int) (limit * backoffRatio));
+            else if (released * 2 >= limit)
+                limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejections() {
+        return rejections.get();
+    }
+}
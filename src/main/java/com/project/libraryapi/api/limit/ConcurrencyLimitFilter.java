@@ -0,0 +1,120 @@
+package com.project.libraryapi.api.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.libraryapi.api.exception.ApiErrors;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Bulkheads in front of the servlet controllers: loan writes and catalog reads
+ * each get their own adaptive limit, so a slow database filling one cannot take
+ * the threads of the other. Requests over a limit are answered 503 with
+ * {@code Retry-After} at once; any other request passes through. Runs after the
+ * metrics filter, so rejections still show in {@code http.server.requests}. A
+ * streamed response holds its slot only until the handler returns.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "library.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final AimdLimit loanWrites;
+    private final AimdLimit catalogReads;
+    private final Duration retryAfter;
+    private final ObjectMapper objectMapper;
+
+    public ConcurrencyLimitFilter(
+            @Value("${library.concurrency-limit.loan-writes.initial-limit:20}") int loanWritesInitialLimit,
+            @Value("${library.concurrency-limit.loan-writes.max-limit:50}") int loanWritesMaxLimit,
+            @Value("${library.concurrency-limit.loan-writes.latency-threshold:250ms}") Duration loanWritesThreshold,
+            @Value("${library.concurrency-limit.catalog-reads.initial-limit:50}") int catalogReadsInitialLimit,
+            @Value("${library.concurrency-limit.catalog-reads.max-limit:200}") int catalogReadsMaxLimit,
+            @Value("${library.concurrency-limit.catalog-reads.latency-threshold:100ms}") Duration catalogReadsThreshold,
+            @Value("${library.concurrency-limit.retry-after:1s}") Duration retryAfter,
+            ObjectMapper objectMapper) {
+        this.loanWrites = new AimdLimit("loan-writes", loanWritesInitialLimit, 1, loanWritesMaxLimit,
+                loanWritesThreshold, BACKOFF_RATIO);
+        this.catalogReads = new AimdLimit("catalog-reads", catalogReadsInitialLimit, 1, catalogReadsMaxLimit,
+                catalogReadsThreshold, BACKOFF_RATIO);
+        this.retryAfter = retryAfter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AimdLimit bulkhead = bulkheadOf(request);
+        if (bulkhead == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!bulkhead.tryAcquire()) {
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            bulkhead.release(System.nanoTime() - start);
+        }
+    }
+
+    private AimdLimit bulkheadOf(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        if (!read && path.startsWith("/api/loans"))
+            return loanWrites;
+        if (read && path.startsWith("/api/books"))
+            return catalogReads;
+        return null;
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ApiErrors("Too many concurrent requests, try again later."));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (AimdLimit bulkhead : List.of(loanWrites, catalogReads)) {
+            Gauge.builder("library.concurrency.limit", bulkhead, AimdLimit::getLimit)
+                    .tag("bulkhead", bulkhead.getName())
+                    .description("Current adaptive concurrency limit")
+                    .register(registry);
+            Gauge.builder("library.concurrency.in.flight", bulkhead, AimdLimit::getInFlight)
+                    .tag("bulkhead", bulkhead.getName())
+                    .register(registry);
+            FunctionCounter.builder("library.concurrency.rejections", bulkhead, AimdLimit::getRejections)
+                    .tag("bulkhead", bulkhead.getName())
+                    .description("Requests answered 503 because the bulkhead was full")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.project.libraryapi.api.mapper;
+
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.row.BookRow;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+
+@Mapper
+public interface BookMapper {
+
+    BookDTO toDTO(Book book);
+
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "lastModified", ignore = true)
+    Book toEntity(BookDTO bookDTO);
+
+    BookDTO toDTO(BookRow book);
+
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "lastModified", ignore = true)
+    BookRow toRow(BookDTO bookDTO);
+}
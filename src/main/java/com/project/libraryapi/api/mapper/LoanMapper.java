@@ -0,0 +1,11 @@
+package com.project.libraryapi.api.mapper;
+
+import com.project.libraryapi.api.dto.LoanDTO;
+import com.project.libraryapi.model.entity.Loan;
+import org.mapstruct.Mapper;
+
+@Mapper(uses = BookMapper.class)
+public interface LoanMapper {
+
+    LoanDTO toDTO(Loan loan);
+}
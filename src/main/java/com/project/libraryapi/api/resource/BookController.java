@@ -1,46 +1,165 @@
 package com.project.libraryapi.api.resource;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.project.libraryapi.api.dto.BookAvailabilityDTO;
 import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.api.dto.BookImportResultDTO;
+import com.project.libraryapi.api.dto.BookImportRowDTO;
+import com.project.libraryapi.api.dto.CursorPageDTO;
+import com.project.libraryapi.api.mapper.BookMapper;
 import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.repository.KeysetCursor;
 import com.project.libraryapi.service.BookService;
-import org.modelmapper.ModelMapper;
+import com.project.libraryapi.service.LoanService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/books")
 public class BookController {
 
+    private static final int IMPORT_CHUNK_SIZE = 500;
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final Set<String> CURSOR_SORT_PROPERTIES = Set.of("id", "title", "author", "isbn");
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("title", "author");
+
     private final BookService bookService;
-    private final ModelMapper modelMapper;
+    private final LoanService loanService;
+    private final BookMapper bookMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
 
-    public BookController(BookService bookService, ModelMapper mapper) {
+    public BookController(BookService bookService, LoanService loanService, BookMapper bookMapper,
+                          ObjectMapper objectMapper, Validator validator) {
         this.bookService = bookService;
-        this.modelMapper = mapper;
+        this.loanService = loanService;
+        this.bookMapper = bookMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
     }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookDTO create(@RequestBody @Valid BookDTO bookDTO){
-        Book entity = modelMapper.map(bookDTO, Book.class);
+        Book entity = toBookEntity(bookDTO);
         entity = bookService.save(entity);
         return toBookDTO(entity);
     }
 
+    /**
+     * Rows are saved in chunks as they are read, so a malformed element cannot undo
+     * the ones before it: the import stops there and answers 400 with the summary
+     * of every row read so far, the malformed one last.
+     */
+    @PostMapping(value = "batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BookImportResultDTO> importBooks(InputStream body) throws IOException {
+        boolean aborted = false;
+        List<BookImportRowDTO> rows = new ArrayList<>();
+        List<BookImportRowDTO> chunkRows = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        List<Book> chunkBooks = new ArrayList<>(IMPORT_CHUNK_SIZE);
+
+        try (MappingIterator<BookDTO> books = objectMapper.readerFor(BookDTO.class).readValues(body)) {
+            while (books.hasNextValue()) {
+                BookDTO bookDTO = books.nextValue();
+                BookImportRowDTO row = BookImportRowDTO.builder().row(rows.size()).isbn(bookDTO.getIsbn()).build();
+                rows.add(row);
+
+                List<String> errors = validator.validate(bookDTO).stream()
+                        .map(ConstraintViolation::getMessage)
+                        .collect(Collectors.toList());
+                if (!errors.isEmpty()) {
+                    row.setStatus(BookImportRowDTO.Status.INVALID);
+                    row.setErrors(errors);
+                    continue;
+                }
+
+                chunkRows.add(row);
+                chunkBooks.add(toBookEntity(bookDTO));
+                if (chunkBooks.size() == IMPORT_CHUNK_SIZE)
+                    importChunk(chunkRows, chunkBooks);
+            }
+        } catch (JsonProcessingException ex) {
+            aborted = true;
+            rows.add(BookImportRowDTO.builder()
+                    .row(rows.size())
+                    .status(BookImportRowDTO.Status.MALFORMED)
+                    .errors(List.of("Malformed book at row " + rows.size()))
+                    .build());
+        }
+        importChunk(chunkRows, chunkBooks);
+
+        int created = (int) rows.stream().filter(row -> row.getStatus() == BookImportRowDTO.Status.CREATED).count();
+        BookImportResultDTO result = BookImportResultDTO.builder()
+                .created(created)
+                .rejected(rows.size() - created)
+                .aborted(aborted)
+                .rows(rows)
+                .build();
+        return ResponseEntity.status(aborted ? HttpStatus.BAD_REQUEST : HttpStatus.OK).body(result);
+    }
+
+    @GetMapping("export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format){
+        switch (format) {
+            case "csv":
+                return exportResponse(TEXT_CSV, "books.csv", this::writeCsv);
+            case "ndjson":
+                return exportResponse(MediaType.APPLICATION_NDJSON, "books.ndjson", this::writeNdjson);
+            default:
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + format);
+        }
+    }
+
+    /**
+     * A revalidation of a book whose version is still cached is answered without
+     * the database; otherwise the book is loaded and Spring answers 304 itself when
+     * the ETag or modification time still matches.
+     */
     @GetMapping("{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public BookDTO getBookById(@PathVariable Long id){
+    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id, @RequestHeader HttpHeaders headers){
+        Optional<BookVersion> cached = bookService.findCachedVersion(id);
+        if (cached.isPresent() && BookETags.notModified(headers.getIfNoneMatch(), cached.get()))
+            return BookETags.withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cached.get()).build();
         return bookService.findById(id)
-                .map(book -> toBookDTO(book))
+                .map(book -> BookETags.withValidators(ResponseEntity.ok(), versionOf(book)).body(toBookDTO(book)))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    @GetMapping("{id}/availability")
+    @ResponseStatus(HttpStatus.OK)
+    public BookAvailabilityDTO getAvailability(@PathVariable Long id){
+        Book book = bookService.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return new BookAvailabilityDTO(book.getId(), loanService.isAvailable(book));
     }
 
     @DeleteMapping("{id}")
@@ -52,34 +171,129 @@ public class BookController {
     }
 
     @PutMapping("{id}")
-    @ResponseStatus(HttpStatus.OK)
-    public BookDTO update(@PathVariable Long id, BookDTO bookDTO){
-        return bookService.findById(id)
-                .map(book ->{   book.setAuthor(bookDTO.getAuthor());
-                                book.setTitle(bookDTO.getTitle());
-                                book = bookService.updateBook(book);
-                                return toBookDTO(book);
-                }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, BookDTO bookDTO, @RequestHeader HttpHeaders headers){
+        Book book = bookService.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        BookETags.checkIfMatch(headers.getIfMatch(), book.getVersion());
+        book.setAuthor(bookDTO.getAuthor());
+        book.setTitle(bookDTO.getTitle());
+        book = bookService.updateBook(book);
+        return BookETags.withValidators(ResponseEntity.ok(), versionOf(book)).body(toBookDTO(book));
     }
 
+    /**
+     * JSON Merge Patch of the title and author, applied in a single statement that
+     * also checks the {@code If-Match} versions, so the book is not loaded first.
+     */
+    @PatchMapping(value = "{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patch(@PathVariable Long id, @RequestBody JsonNode patch, @RequestHeader HttpHeaders headers){
+        Map<String, JsonNode> fields = MergePatch.fields(patch, PATCHABLE_FIELDS);
+        String title = MergePatch.text(fields, "title");
+        String author = MergePatch.text(fields, "author");
+        List<Long> expectedVersions = BookETags.expectedVersions(headers.getIfMatch());
+        if (fields.isEmpty()) {
+            Book book = bookService.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            BookETags.checkIfMatch(headers.getIfMatch(), book.getVersion());
+            return BookETags.withValidators(ResponseEntity.status(HttpStatus.NO_CONTENT), versionOf(book)).build();
+        }
+        return bookService.patchBook(id, title, author, expectedVersions)
+                .map(version -> BookETags.withValidators(ResponseEntity.status(HttpStatus.NO_CONTENT), version).<Void>build())
+                .orElseThrow(() -> bookService.findById(id).isPresent()
+                        ? new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified since it was read.")
+                        : new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * {@code withTotal=false} answers a slice, which tells whether a next page
+     * exists without counting every match.
+     */
     @GetMapping
-    public Page<BookDTO> findByFilters(BookDTO bookDTO, Pageable pageRequest){
+    public Slice<BookView> findByFilters(BookDTO bookDTO, @RequestParam(defaultValue = "true") boolean withTotal,
+                                         Pageable pageRequest){
         Book filter = toBookEntity(bookDTO);
-        Page<Book> result = bookService.findByFilters(filter, pageRequest);
-        List<BookDTO> resultList = result.getContent()
+        if (!withTotal)
+            return bookService.findViewSliceByFilters(filter, pageRequest);
+        return bookService.findViewsByFilters(filter, pageRequest);
+    }
+
+    @GetMapping(params = "after")
+    public CursorPageDTO<BookDTO> findByFiltersAfter(BookDTO bookDTO, @RequestParam String after, Pageable pageRequest){
+        KeysetCursor cursor = KeysetCursors.parse(after, pageRequest, CURSOR_SORT_PROPERTIES);
+        int size = pageRequest.getPageSize();
+        return KeysetCursors.toCursorPage(
+                bookService.findByFiltersAfter(toBookEntity(bookDTO), cursor, size).map(this::toBookDTO), size);
+    }
+
+    private void importChunk(List<BookImportRowDTO> chunkRows, List<Book> chunkBooks) {
+        if (chunkBooks.isEmpty())
+            return;
+        Map<String, Long> createdIds = bookService.saveAll(chunkBooks)
                 .stream()
-                .map(entity -> toBookDTO(entity))
-                .collect(Collectors.toList());
+                .collect(Collectors.toMap(Book::getIsbn, Book::getId));
+        chunkRows.forEach(row -> {
+            Long id = createdIds.remove(row.getIsbn());
+            row.setId(id);
+            row.setStatus(id != null ? BookImportRowDTO.Status.CREATED : BookImportRowDTO.Status.DUPLICATED);
+        });
+        chunkRows.clear();
+        chunkBooks.clear();
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(MediaType mediaType, String fileName, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    private void writeCsv(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write("id,title,author,isbn\n");
+        bookService.forEachBook(book -> {
+            try {
+                writer.write(book.getId() + "," + csvValue(book.getTitle()) + "," + csvValue(book.getAuthor())
+                        + "," + csvValue(book.getIsbn()) + "\n");
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        writer.flush();
+    }
+
+    private void writeNdjson(OutputStream outputStream) throws IOException {
+        try (SequenceWriter writer = objectMapper.writerFor(BookDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(outputStream)) {
+            bookService.forEachBook(book -> {
+                try {
+                    writer.write(toBookDTO(book));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        }
+    }
+
+    private String csvValue(String value) {
+        if (value == null)
+            return "";
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r"))
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        return value;
+    }
 
-        return new PageImpl<BookDTO>(resultList, pageRequest, result.getTotalElements());
+    private BookVersion versionOf(Book book) {
+        return new BookVersion(book.getVersion(), book.getLastModified());
     }
 
     private BookDTO toBookDTO(Book book) {
-        return modelMapper.map(book, BookDTO.class);
+        return bookMapper.toDTO(book);
     }
 
     private Book toBookEntity(BookDTO bookDTO) {
-        return modelMapper.map(bookDTO, Book.class);
+        return bookMapper.toEntity(bookDTO);
     }
 
 }
@@ -0,0 +1,77 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.model.projection.BookVersion;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Validators of a book representation: a strong ETag made of the book version,
+ * and its last modification time. {@code If-None-Match} is compared weakly and
+ * {@code If-Match} strongly, as RFC 7232 asks.
+ */
+final class BookETags {
+
+    private static final String ANY = "*";
+
+    private BookETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static boolean notModified(List<String> ifNoneMatch, BookVersion version) {
+        String eTag = of(version.getVersion());
+        return ifNoneMatch.stream().anyMatch(tag -> ANY.equals(tag) || eTag.equals(tag) || ("W/" + eTag).equals(tag));
+    }
+
+    static void checkIfMatch(List<String> ifMatch, Long version) {
+        if (ifMatch.isEmpty())
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED, "If-Match header is required.");
+        if (ifMatch.stream().noneMatch(tag -> ANY.equals(tag) || of(version).equals(tag)))
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified since it was read.");
+    }
+
+    /**
+     * Versions an {@code If-Match} header accepts, for a write that checks them in
+     * its own statement; null when it accepts any. Weak tags, and tags that are not
+     * a version, never match.
+     */
+    static List<Long> expectedVersions(List<String> ifMatch) {
+        if (ifMatch.isEmpty())
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED, "If-Match header is required.");
+        if (ifMatch.contains(ANY))
+            return null;
+        List<Long> versions = ifMatch.stream()
+                .filter(tag -> tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\""))
+                .map(tag -> tag.substring(1, tag.length() - 1))
+                .filter(version -> version.chars().allMatch(Character::isDigit))
+                .flatMap(BookETags::parseVersion)
+                .distinct()
+                .collect(Collectors.toList());
+        if (versions.isEmpty())
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified since it was read.");
+        return versions;
+    }
+
+    private static Stream<Long> parseVersion(String version) {
+        try {
+            return Stream.of(Long.valueOf(version));
+        } catch (NumberFormatException e) {
+            return Stream.empty();
+        }
+    }
+
+    static ResponseEntity.BodyBuilder withValidators(ResponseEntity.BodyBuilder builder, BookVersion version) {
+        if (version.getVersion() != null)
+            builder.eTag(of(version.getVersion()));
+        if (version.getLastModified() != null)
+            builder.lastModified(version.getLastModified());
+        return builder;
+    }
+}
@@ -0,0 +1,55 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.CursorPageDTO;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Translates the {@code after} request parameter of the cursor listing mode. An
+ * empty value starts at the first page using the requested sort (id by default);
+ * any other value is a token returned as {@code next} by the previous page.
+ */
+final class KeysetCursors {
+
+    private KeysetCursors() {
+    }
+
+    static KeysetCursor parse(String after, Pageable pageRequest, Set<String> sortableProperties) {
+        KeysetCursor cursor = after.isEmpty() ? first(pageRequest.getSort()) : decode(after);
+        if (!sortableProperties.contains(cursor.getSortProperty()))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort property: " + cursor.getSortProperty());
+        return cursor;
+    }
+
+    static <T> CursorPageDTO<T> toCursorPage(KeysetSlice<T> slice, int size) {
+        return CursorPageDTO.<T>builder()
+                .content(slice.getContent())
+                .size(size)
+                .next(slice.hasNext() ? slice.getNext().encode() : null)
+                .build();
+    }
+
+    private static KeysetCursor first(Sort sort) {
+        List<Sort.Order> orders = sort.stream().collect(Collectors.toList());
+        if (orders.size() > 1)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor pagination supports a single sort property");
+        Sort.Order order = orders.isEmpty() ? Sort.Order.asc("id") : orders.get(0);
+        return KeysetCursor.first(order.getProperty(), order.getDirection());
+    }
+
+    private static KeysetCursor decode(String after) {
+        try {
+            return KeysetCursor.decode(after);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+    }
+}
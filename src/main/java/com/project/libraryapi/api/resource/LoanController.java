@@ -1,36 +1,50 @@
 package com.project.libraryapi.api.resource;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.project.libraryapi.api.dto.CursorPageDTO;
 import com.project.libraryapi.api.dto.LoanDTO;
 import com.project.libraryapi.api.dto.LoanInputDTO;
-import com.project.libraryapi.api.dto.ReturnedLoanDTO;
+import com.project.libraryapi.api.dto.LoanReturnDTO;
+import com.project.libraryapi.api.dto.LoanReturnResultDTO;
+import com.project.libraryapi.api.mapper.LoanMapper;
 import com.project.libraryapi.model.entity.Book;
 import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import com.project.libraryapi.model.repository.KeysetCursor;
 import com.project.libraryapi.service.BookService;
 import com.project.libraryapi.service.LoanService;
-import org.modelmapper.ModelMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/loans")
 public class LoanController {
 
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "customer", "loanDate", "returned");
+    private static final Set<String> CURSOR_SORT_PROPERTIES = Set.of("id", "customer", "loanDate");
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("returned");
+
     private final BookService bookService;
     private final LoanService loanService;
-    private final ModelMapper modelMapper;
+    private final LoanMapper loanMapper;
 
-    public LoanController(BookService bookService, LoanService loanService, ModelMapper modelMapper) {
+    public LoanController(BookService bookService, LoanService loanService, LoanMapper loanMapper) {
         this.bookService = bookService;
         this.loanService = loanService;
-        this.modelMapper = modelMapper;
+        this.loanMapper = loanMapper;
     }
 
     @PostMapping
@@ -48,25 +62,58 @@ public class LoanController {
         return entity.getId();
     }
 
-    @PatchMapping("{id}")
-    public Loan updateLoan(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto){
-        Loan foundLoan = loanService.findById(id)
+    @PatchMapping("returns")
+    public LoanReturnResultDTO returnLoans(@RequestBody LoanReturnDTO dto){
+        if (isEmpty(dto.getIds()) && isEmpty(dto.getIsbns()))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No loan ids or isbns to return");
+        return loanService.returnAll(dto);
+    }
+
+    /**
+     * JSON Merge Patch of the returned flag, applied in a single statement. Plain
+     * JSON is still accepted for the clients that sent it before.
+     */
+    @PatchMapping(value = "{id}", consumes = {MergePatch.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public LoanDTO updateLoan(@PathVariable Long id, @RequestBody JsonNode patch){
+        Boolean returned = MergePatch.bool(MergePatch.fields(patch, PATCHABLE_FIELDS), "returned");
+        Optional<Loan> loan = returned != null
+                ? loanService.updateReturned(id, returned)
+                : loanService.findById(id);
+        return loan.map(this::toLoanDTO)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        foundLoan.setReturned(dto.getReturned());
-        return loanService.update(foundLoan);
     }
 
+    /**
+     * {@code withTotal=false} answers a slice, which tells whether a next page
+     * exists without counting every match.
+     */
     @GetMapping
-    public Page<LoanDTO> find(LoanInputDTO filterDTO, Pageable pageRequest){
-        Page<Loan> result = loanService.find(filterDTO, pageRequest);
-        List<LoanDTO> loans = result.getContent()
-                                    .stream()
-                                    .map(loan -> toLoanDTO(loan))
-                                    .collect(Collectors.toList());
-        return new PageImpl<LoanDTO>(loans, pageRequest, result.getTotalElements());
+    public Slice<LoanView> find(LoanInputDTO filterDTO, @RequestParam(defaultValue = "true") boolean withTotal,
+                                Pageable pageRequest){
+        SortProperties.requireSupported(pageRequest.getSort(), SORT_PROPERTIES);
+        if (!withTotal)
+            return loanService.findViewSlice(filterDTO, pageRequest);
+        return loanService.findViews(filterDTO, pageRequest);
+    }
+
+    @GetMapping("overdue")
+    public Page<OverdueLoanView> findOverdue(Pageable pageRequest){
+        return loanService.findOverdue(pageRequest);
+    }
+
+    @GetMapping(params = "after")
+    public CursorPageDTO<LoanDTO> findAfter(LoanInputDTO filterDTO, @RequestParam String after, Pageable pageRequest){
+        KeysetCursor cursor = KeysetCursors.parse(after, pageRequest, CURSOR_SORT_PROPERTIES);
+        int size = pageRequest.getPageSize();
+        return KeysetCursors.toCursorPage(
+                loanService.findAfter(filterDTO, cursor, size).map(this::toLoanDTO), size);
+    }
+
+    private static boolean isEmpty(List<?> values) {
+        return values == null || values.isEmpty();
     }
 
     private LoanDTO toLoanDTO(Loan loan) {
-        return modelMapper.map(loan, LoanDTO.class);
+        return loanMapper.toDTO(loan);
     }
 }
@@ -0,0 +1,56 @@
+package com.project.libraryapi.api.resource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads a JSON Merge Patch (RFC 7396) body: an object whose members replace the
+ * fields of the same name and whose absent members leave them unchanged. A null
+ * member would remove the field, which no patchable field allows.
+ */
+final class MergePatch {
+
+    static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private MergePatch() {
+    }
+
+    static Map<String, JsonNode> fields(JsonNode patch, Set<String> patchableFields) {
+        if (patch == null || !patch.isObject())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Patch must be a JSON object");
+        Map<String, JsonNode> fields = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = patch.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (!patchableFields.contains(field.getKey()))
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field cannot be patched: " + field.getKey());
+            if (field.getValue().isNull())
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field cannot be removed: " + field.getKey());
+            fields.put(field.getKey(), field.getValue());
+        }
+        return fields;
+    }
+
+    static String text(Map<String, JsonNode> fields, String name) {
+        JsonNode value = fields.get(name);
+        if (value == null)
+            return null;
+        if (!value.isTextual() || value.asText().isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field must be a non-empty string: " + name);
+        return value.asText();
+    }
+
+    static Boolean bool(Map<String, JsonNode> fields, String name) {
+        JsonNode value = fields.get(name);
+        if (value == null)
+            return null;
+        if (!value.isBoolean())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Field must be a boolean: " + name);
+        return value.asBoolean();
+    }
+}
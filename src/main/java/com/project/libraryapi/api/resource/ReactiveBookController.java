@@ -0,0 +1,96 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.BookAvailabilityDTO;
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.api.mapper.BookMapper;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.row.BookRow;
+import com.project.libraryapi.service.ReactiveBookService;
+import com.project.libraryapi.service.ReactiveLoanService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.Optional;
+
+/**
+ * Non-blocking variant of {@link BookController} for the reactive profile. The
+ * batch import, export and cursor listing are only served by the servlet stack.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/books")
+public class ReactiveBookController {
+
+    private final ReactiveBookService bookService;
+    private final ReactiveLoanService loanService;
+    private final BookMapper bookMapper;
+
+    public ReactiveBookController(ReactiveBookService bookService, ReactiveLoanService loanService, BookMapper bookMapper) {
+        this.bookService = bookService;
+        this.loanService = loanService;
+        this.bookMapper = bookMapper;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<BookDTO> create(@RequestBody @Valid BookDTO bookDTO){
+        BookRow book = bookMapper.toRow(bookDTO);
+        book.setId(null);
+        return bookService.save(book).map(bookMapper::toDTO);
+    }
+
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<BookDTO>> getBookById(@PathVariable Long id, @RequestHeader HttpHeaders headers){
+        Optional<BookVersion> cached = bookService.findCachedVersion(id);
+        if (cached.isPresent() && BookETags.notModified(headers.getIfNoneMatch(), cached.get()))
+            return Mono.just(BookETags.withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cached.get()).build());
+        return findBook(id).map(book -> BookETags.withValidators(ResponseEntity.ok(), versionOf(book)).body(bookMapper.toDTO(book)));
+    }
+
+    @GetMapping("{id}/availability")
+    @ResponseStatus(HttpStatus.OK)
+    public Mono<BookAvailabilityDTO> getAvailability(@PathVariable Long id){
+        return findBook(id).flatMap(book -> loanService.isAvailable(book)
+                .map(available -> new BookAvailabilityDTO(book.getId(), available)));
+    }
+
+    @DeleteMapping("{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> delete(@PathVariable Long id){
+        return findBook(id).flatMap(bookService::delete);
+    }
+
+    @PutMapping("{id}")
+    public Mono<ResponseEntity<BookDTO>> update(@PathVariable Long id, @RequestBody BookDTO bookDTO, @RequestHeader HttpHeaders headers){
+        return findBook(id)
+                .flatMap(book -> {  BookETags.checkIfMatch(headers.getIfMatch(), book.getVersion());
+                                    book.setAuthor(bookDTO.getAuthor());
+                                    book.setTitle(bookDTO.getTitle());
+                                    return bookService.updateBook(book);
+                })
+                .map(book -> BookETags.withValidators(ResponseEntity.ok(), versionOf(book)).body(bookMapper.toDTO(book)));
+    }
+
+    @GetMapping
+    public Mono<Page<BookView>> findByFilters(BookDTO bookDTO, Pageable pageRequest){
+        return bookService.findViewsByFilters(bookMapper.toRow(bookDTO), pageRequest);
+    }
+
+    private BookVersion versionOf(BookRow book) {
+        return new BookVersion(book.getVersion(), book.getLastModified());
+    }
+
+    private Mono<BookRow> findBook(Long id) {
+        return bookService.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+}
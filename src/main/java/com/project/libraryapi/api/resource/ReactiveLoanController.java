@@ -0,0 +1,69 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.ReturnedLoanDTO;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import com.project.libraryapi.model.row.LoanRow;
+import com.project.libraryapi.service.ReactiveBookService;
+import com.project.libraryapi.service.ReactiveLoanService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+/**
+ * Non-blocking variant of {@link LoanController} for the reactive profile. The
+ * cursor listing is only served by the servlet stack.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/loans")
+public class ReactiveLoanController {
+
+    private static final Set<String> SORT_PROPERTIES = Set.of("id", "customer", "loanDate");
+
+    private final ReactiveBookService bookService;
+    private final ReactiveLoanService loanService;
+
+    public ReactiveLoanController(ReactiveBookService bookService, ReactiveLoanService loanService) {
+        this.bookService = bookService;
+        this.loanService = loanService;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Long> createLoan(@RequestBody LoanInputDTO loanDTO){
+        return bookService.findByIsbn(loanDTO.getIsbn())
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed isbn")))
+                .flatMap(book -> loanService.save(LoanRow.builder()
+                        .bookId(book.getId())
+                        .customer(loanDTO.getCustomer())
+                        .loanDate(LocalDate.now())
+                        .build()))
+                .map(LoanRow::getId);
+    }
+
+    @PatchMapping("{id}")
+    public Mono<LoanRow> updateLoan(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto){
+        return loanService.updateReturned(id, Boolean.TRUE.equals(dto.getReturned()))
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    }
+
+    @GetMapping
+    public Mono<Page<LoanView>> find(LoanInputDTO filterDTO, Pageable pageRequest){
+        SortProperties.requireSupported(pageRequest.getSort(), SORT_PROPERTIES);
+        return loanService.findViews(filterDTO, pageRequest);
+    }
+
+    @GetMapping("overdue")
+    public Mono<Page<OverdueLoanView>> findOverdue(Pageable pageRequest){
+        return loanService.findOverdue(pageRequest);
+    }
+}
@@ -0,0 +1,27 @@
+package com.project.libraryapi.api.resource;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Set;
+
+/**
+ * Checks the {@code sort} request parameter before it reaches a query, so a
+ * property the listing does not order by is answered as a bad request.
+ */
+final class SortProperties {
+
+    private SortProperties() {
+    }
+
+    static void requireSupported(Sort sort, Set<String> sortableProperties) {
+        sort.stream()
+                .map(Sort.Order::getProperty)
+                .filter(property -> !sortableProperties.contains(property))
+                .findFirst()
+                .ifPresent(property -> {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported sort property: " + property);
+                });
+    }
+}
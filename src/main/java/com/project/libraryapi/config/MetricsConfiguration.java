@@ -0,0 +1,20 @@
+package com.project.libraryapi.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Makes {@code @Timed} work on Spring beans, which Boot leaves to the
+ * application. Endpoints are timed by Boot as {@code http.server.requests} and
+ * repository calls as {@code spring.data.repository.invocations}.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,93 @@
+package com.project.libraryapi.config;
+
+import com.project.libraryapi.model.row.BookRow;
+import com.project.libraryapi.model.row.LoanRow;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.r2dbc.mapping.event.BeforeConvertCallback;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Points R2DBC at the same H2 database as the JDBC data source, so both stacks
+ * see one schema (migrated by Flyway over JDBC) and one set of constraints.
+ * Spring Boot backs off from the JDBC data source as soon as a connection
+ * factory exists, so the Hikari pool is declared here the way Boot would.
+ */
+@Configuration
+public class ReactivePersistenceConfiguration {
+
+    private static final String H2_URL_PREFIX = "jdbc:h2:";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${spring.r2dbc.url:}'.isEmpty()")
+    public ConnectionFactory connectionFactory(DataSourceProperties dataSourceProperties) {
+        String url = dataSourceProperties.determineUrl();
+        if (url == null || !url.startsWith(H2_URL_PREFIX))
+            throw new IllegalStateException("Set spring.r2dbc.url when the data source is not H2.");
+        return new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_URL_PREFIX.length()))
+                .username(dataSourceProperties.determineUsername())
+                .password(dataSourceProperties.determinePassword())
+                .build());
+    }
+
+    /**
+     * Takes a value of the book sequence as the id itself. Hibernate hands out the
+     * block that starts at each value it takes, so the two never collide.
+     */
+    @Bean
+    public BeforeConvertCallback<BookRow> bookIdCallback(DatabaseClient databaseClient) {
+        return (book, table) -> {
+            if (book.getId() != null)
+                return Mono.just(book);
+            return databaseClient.sql("SELECT NEXT VALUE FOR book_seq")
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .map(id -> book.toBuilder().id(id).build());
+        };
+    }
+
+    /**
+     * Same rule as {@code Book#touch}; the version is bumped by Spring Data itself.
+     */
+    @Bean
+    public BeforeConvertCallback<BookRow> bookLastModifiedCallback() {
+        return (book, table) -> {
+            book.setLastModified(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+            return Mono.just(book);
+        };
+    }
+
+    @Bean
+    public BeforeConvertCallback<LoanRow> activeBookCallback() {
+        return (loan, table) -> {
+            loan.syncActiveBook();
+            return Mono.just(loan);
+        };
+    }
+}
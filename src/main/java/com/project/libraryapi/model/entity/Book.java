@@ -5,19 +5,29 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(indexes = @Index(name = "ux_book_isbn", columnList = "isbn", unique = true))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 public class Book {
 
+    public static final String CACHE_REGION = "book";
+
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
 
     @Column
@@ -28,4 +38,20 @@ public class Book {
 
     @Column
     private String isbn;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+
+    /**
+     * Truncated to what the column stores, so the instance in hand equals the persisted one.
+     */
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    }
 }
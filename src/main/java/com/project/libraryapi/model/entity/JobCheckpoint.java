@@ -0,0 +1,64 @@
+package com.project.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Progress of a chunked background job: the highest id already processed by the
+ * current run and the parameters the run started with, including the id it ends at. A run is in progress
+ * between {@code startedAt} and {@code completedAt}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "job_checkpoint")
+public class JobCheckpoint {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column
+    private LocalDate cutoff;
+
+    @Column(name = "last_id", nullable = false)
+    @Builder.Default
+    private Long lastId = 0L;
+
+    @Column(name = "end_id", nullable = false)
+    @Builder.Default
+    private Long endId = 0L;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    public boolean isRunning() {
+        return startedAt != null && completedAt == null;
+    }
+
+    public void start(LocalDate cutoff, long afterId, long endId) {
+        this.cutoff = cutoff;
+        this.lastId = afterId;
+        this.endId = endId;
+        this.startedAt = Instant.now();
+        this.completedAt = null;
+    }
+
+    public void complete() {
+        this.completedAt = Instant.now();
+    }
+}
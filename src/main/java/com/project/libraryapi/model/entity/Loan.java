@@ -13,7 +13,11 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "ix_loan_book_returned", columnList = "id_book, returned"),
+        @Index(name = "ix_loan_customer", columnList = "customer"),
+        @Index(name = "ix_loan_returned_loan_date", columnList = "returned, loanDate")
+})
 public class Loan {
 
     @Id
@@ -25,12 +29,26 @@ public class Loan {
     private String customer;
 
     @JoinColumn(name = "id_book")
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Book book;
 
     @Column
     private LocalDate loanDate;
 
-    @Column
-    private Boolean returned;
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean returned = false;
+
+    /**
+     * Copy of the book id while the loan is active and null once it is returned.
+     * The unique constraint on it lets the database allow one active loan per book.
+     */
+    @Column(name = "active_book_id", unique = true)
+    private Long activeBookId;
+
+    @PrePersist
+    @PreUpdate
+    void syncActiveBook() {
+        activeBookId = book == null || Boolean.TRUE.equals(returned) ? null : book.getId();
+    }
 }
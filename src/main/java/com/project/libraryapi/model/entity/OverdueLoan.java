@@ -0,0 +1,33 @@
+package com.project.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Entry of the precomputed overdue set, written only by the overdue-loan job. The
+ * row goes away with its loan; a loan returned since the last run is filtered out
+ * when the set is read.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "overdue_loan")
+public class OverdueLoan {
+
+    @Id
+    @Column(name = "loan_id")
+    private Long loanId;
+
+    @Column(name = "loan_date", nullable = false)
+    private LocalDate loanDate;
+}
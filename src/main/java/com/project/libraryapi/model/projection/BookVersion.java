@@ -0,0 +1,15 @@
+package com.project.libraryapi.model.projection;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * What a book's ETag and {@code Last-Modified} headers are made of.
+ */
+@Value
+public class BookVersion {
+
+    Long version;
+    Instant lastModified;
+}
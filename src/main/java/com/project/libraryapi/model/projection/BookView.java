@@ -0,0 +1,16 @@
+package com.project.libraryapi.model.projection;
+
+import lombok.Value;
+
+/**
+ * Read-only row of a book listing, selected straight from the query with the
+ * same shape as {@code BookDTO}.
+ */
+@Value
+public class BookView {
+
+    Long id;
+    String title;
+    String author;
+    String isbn;
+}
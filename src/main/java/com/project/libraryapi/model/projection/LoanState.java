@@ -0,0 +1,15 @@
+package com.project.libraryapi.model.projection;
+
+import lombok.Value;
+
+/**
+ * Return status of a loan and the book it holds, all a bulk return needs to read.
+ */
+@Value
+public class LoanState {
+
+    Long id;
+    Boolean returned;
+    Long bookId;
+    String isbn;
+}
@@ -0,0 +1,22 @@
+package com.project.libraryapi.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+/**
+ * Read-only row of a loan listing with its book, with the same shape as
+ * {@code LoanDTO}. JPQL constructor expressions cannot nest, hence the flat
+ * constructor.
+ */
+@Value
+@AllArgsConstructor
+public class LoanView {
+
+    Long id;
+    String customer;
+    BookView book;
+
+    public LoanView(Long id, String customer, Long bookId, String title, String author, String isbn) {
+        this(id, customer, new BookView(bookId, title, author, isbn));
+    }
+}
@@ -0,0 +1,24 @@
+package com.project.libraryapi.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only row of the overdue-loan listing: a loan of the overdue set with the
+ * date it was taken and its book.
+ */
+@Value
+@AllArgsConstructor
+public class OverdueLoanView {
+
+    Long id;
+    String customer;
+    LocalDate loanDate;
+    BookView book;
+
+    public OverdueLoanView(Long id, String customer, LocalDate loanDate, Long bookId, String title, String author, String isbn) {
+        this(id, customer, loanDate, new BookView(bookId, title, author, isbn));
+    }
+}
@@ -1,15 +1,36 @@
 package com.project.libraryapi.model.repository;
 
 import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.web.bind.annotation.RequestBody;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+
+    String ISBN_QUERY_REGION = "book-by-isbn";
+
     boolean existsByIsbn(String isbn);
 
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = ISBN_QUERY_REGION)
+    })
     Optional<Book> findByIsbn(String isbn);
+
+    @Query(value = "SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    Set<String> findRegisteredIsbns(@Param("isbns") Collection<String> isbns);
+
+    @Query("SELECT new com.project.libraryapi.model.projection.BookView(b.id, b.title, b.author, b.isbn)" +
+            " FROM Book b WHERE b.id IN :ids")
+    List<BookView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,29 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface BookRepositoryCustom {
+
+    List<Book> insertAll(List<Book> books);
+
+    int updateFields(long id, String title, String author, Collection<Long> expectedVersions, Instant lastModified);
+
+    void forEachBook(Consumer<? super Book> action);
+
+    void forEachIsbn(Consumer<? super String> action);
+
+    KeysetSlice<Book> findByFiltersAfter(Book filter, KeysetCursor cursor, int size);
+
+    Page<BookView> findViewsByFilters(Book filter, Pageable pageRequest);
+
+    Slice<BookView> findViewSliceByFilters(Book filter, Pageable pageRequest);
+}
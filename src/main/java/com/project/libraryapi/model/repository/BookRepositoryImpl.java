@@ -0,0 +1,240 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookView;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public BookRepositoryImpl(EntityManager entityManager, NamedParameterJdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Persists new books in JDBC batches and detaches them afterwards, so a long
+     * import does not keep growing the persistence context of the request.
+     */
+    @Override
+    @Transactional
+    public List<Book> insertAll(List<Book> books) {
+        books.forEach(entityManager::persist);
+        entityManager.flush();
+        books.forEach(entityManager::detach);
+        return books;
+    }
+
+    /**
+     * Changes the given columns of one book and bumps its version in a single
+     * statement, without loading it. Plain JDBC because a bulk JPQL update evicts
+     * the whole book region of the second-level cache; here only the entry of
+     * this book is soft-locked, the way Hibernate locks it around an entity
+     * update, from before the statement until the transaction ends. A load that
+     * read the old row meanwhile cannot put it back into the cache.
+     *
+     * @param title the new title, or null to keep it
+     * @param author the new author, or null to keep it
+     * @param expectedVersions the versions the row may have, or null for any
+     * @return the number of rows updated
+     */
+    @Override
+    @Transactional
+    public int updateFields(long id, String title, String author, Collection<Long> expectedVersions, Instant lastModified) {
+        StringBuilder sql = new StringBuilder("UPDATE book SET version = version + 1, last_modified = :lastModified");
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", id)
+                .addValue("lastModified", Timestamp.from(lastModified));
+        if (title != null) {
+            sql.append(", title = :title");
+            parameters.addValue("title", title);
+        }
+        if (author != null) {
+            sql.append(", author = :author");
+            parameters.addValue("author", author);
+        }
+        sql.append(" WHERE id = :id");
+        if (expectedVersions != null) {
+            sql.append(" AND version IN (:versions)");
+            parameters.addValue("versions", expectedVersions);
+        }
+        lockCacheEntryUntilCompletion(id);
+        return jdbcTemplate.update(sql.toString(), parameters);
+    }
+
+    private void lockCacheEntryUntilCompletion(long id) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Book.class);
+        EntityDataAccess cache = persister.getCacheAccessStrategy();
+        if (cache == null)
+            return;
+        Object key = cache.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier());
+        SoftLock lock = cache.lockItem(session, key, null);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                cache.unlockItem(session, key, lock);
+            }
+        });
+    }
+
+    /**
+     * Walks the whole catalog in id order through a forward-only cursor. Each book
+     * is detached right after the action runs, so memory stays flat no matter how
+     * many rows the table has. The session ignores the second-level cache for the
+     * pass: the rows are read once, and caching them would push the hot books out
+     * of the bounded book region.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachBook(Consumer<? super Book> action) {
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode cacheMode = session.getCacheMode();
+        session.setCacheMode(CacheMode.IGNORE);
+        try (Stream<Book> books = entityManager.createQuery("SELECT b FROM Book b ORDER BY b.id", Book.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            books.forEach(book -> {
+                action.accept(book);
+                entityManager.detach(book);
+            });
+        } finally {
+            session.setCacheMode(cacheMode);
+        }
+    }
+
+    /**
+     * Streams only the ISBN column, which is all the startup Bloom filter needs.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachIsbn(Consumer<? super String> action) {
+        try (Stream<String> isbns = entityManager.createQuery("SELECT b.isbn FROM Book b", String.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream()) {
+            isbns.forEach(action);
+        }
+    }
+
+    @Override
+    public KeysetSlice<Book> findByFiltersAfter(Book filter, KeysetCursor cursor, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        Root<Book> book = query.from(Book.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        addContainingIgnoreCase(cb, predicates, book, "title", filter.getTitle());
+        addContainingIgnoreCase(cb, predicates, book, "author", filter.getAuthor());
+        addContainingIgnoreCase(cb, predicates, book, "isbn", filter.getIsbn());
+        predicates.addAll(cursor.seekPredicates(cb, book.get(cursor.getSortProperty()), book.get("id")));
+
+        query.where(predicates.toArray(new Predicate[0]))
+                .orderBy(cursor.orders(cb, book.get(cursor.getSortProperty()), book.get("id")));
+        List<Book> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+        return KeysetSlice.of(rows, size, cursor);
+    }
+
+    /**
+     * Same filters as the {@code Example} search, selected straight into views so
+     * nothing is registered in the persistence context.
+     */
+    @Override
+    public Page<BookView> findViewsByFilters(Book filter, Pageable pageRequest) {
+        TypedQuery<BookView> typedQuery = viewsByFiltersQuery(filter, pageRequest);
+        if (pageRequest.isPaged())
+            typedQuery.setFirstResult((int) pageRequest.getOffset()).setMaxResults(pageRequest.getPageSize());
+        return PageableExecutionUtils.getPage(typedQuery.getResultList(), pageRequest, () -> countByFilters(filter));
+    }
+
+    /**
+     * Reads one row past the page to tell whether there is a next one, so the
+     * count query never runs.
+     */
+    @Override
+    public Slice<BookView> findViewSliceByFilters(Book filter, Pageable pageRequest) {
+        TypedQuery<BookView> typedQuery = viewsByFiltersQuery(filter, pageRequest);
+        if (pageRequest.isUnpaged())
+            return new SliceImpl<>(typedQuery.getResultList(), pageRequest, false);
+        List<BookView> views = typedQuery.setFirstResult((int) pageRequest.getOffset())
+                .setMaxResults(pageRequest.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = views.size() > pageRequest.getPageSize();
+        return new SliceImpl<>(hasNext ? views.subList(0, pageRequest.getPageSize()) : views, pageRequest, hasNext);
+    }
+
+    private TypedQuery<BookView> viewsByFiltersQuery(Book filter, Pageable pageRequest) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookView> query = cb.createQuery(BookView.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(cb.construct(BookView.class, book.get("id"), book.get("title"), book.get("author"), book.get("isbn")))
+                .where(filterPredicates(cb, book, filter))
+                .orderBy(QueryUtils.toOrders(pageRequest.getSort(), book, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private long countByFilters(Book filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> book = query.from(Book.class);
+        query.select(cb.count(book)).where(filterPredicates(cb, book, filter));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private Predicate[] filterPredicates(CriteriaBuilder cb, Root<Book> book, Book filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getId() != null)
+            predicates.add(cb.equal(book.get("id"), filter.getId()));
+        addContainingIgnoreCase(cb, predicates, book, "title", filter.getTitle());
+        addContainingIgnoreCase(cb, predicates, book, "author", filter.getAuthor());
+        addContainingIgnoreCase(cb, predicates, book, "isbn", filter.getIsbn());
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private void addContainingIgnoreCase(CriteriaBuilder cb, List<Predicate> predicates, Root<Book> book,
+                                         String attribute, String value) {
+        if (value == null)
+            return;
+        String pattern = "%" + value.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        predicates.add(cb.like(cb.lower(book.get(attribute)), pattern, '\\'));
+    }
+}
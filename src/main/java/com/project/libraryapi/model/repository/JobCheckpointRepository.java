@@ -0,0 +1,23 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.entity.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+
+    /**
+     * Holding the row lock for the whole chunk transaction keeps two instances from
+     * processing the same chunk.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM JobCheckpoint c WHERE c.name = :name")
+    Optional<JobCheckpoint> findForUpdate(@Param("name") String name);
+}
@@ -0,0 +1,151 @@
+package com.project.libraryapi.model.repository;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.criteria.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Position in a listing ordered by {@code (sortProperty, id)}. The first page has
+ * no position; every following page continues right after the last row of the
+ * previous one, so the database seeks instead of skipping an offset. Null sort
+ * values are the lowest ones, as H2 orders them: first when ascending, last when
+ * descending.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetCursor {
+
+    private static final String ID = "id";
+    private static final String SEPARATOR = "|";
+    private static final String NULL_VALUE = "-";
+    private static final String VALUE_PREFIX = "=";
+    private static final ConversionService CONVERSION = DefaultConversionService.getSharedInstance();
+
+    String sortProperty;
+    Sort.Direction direction;
+    Long lastId;
+    String lastSortValue;
+
+    public static KeysetCursor first(String sortProperty, Sort.Direction direction) {
+        return new KeysetCursor(sortProperty, direction, null, null);
+    }
+
+    public static KeysetCursor decode(String token) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor.", ex);
+        }
+        String[] parts = decoded.split("\\|", 4);
+        if (parts.length != 4)
+            throw new IllegalArgumentException("Invalid cursor.");
+        try {
+            return new KeysetCursor(parts[0], Sort.Direction.fromString(parts[1]),
+                    Long.valueOf(parts[2]), decodeSortValue(parts[3]));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor.", ex);
+        }
+    }
+
+    public String encode() {
+        String raw = sortProperty + SEPARATOR + direction + SEPARATOR + lastId + SEPARATOR
+                + (lastSortValue == null ? NULL_VALUE : VALUE_PREFIX + lastSortValue);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public KeysetCursor after(Object row) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(row);
+        Long id = (Long) wrapper.getPropertyValue(ID);
+        Object sortValue = isSortedById() ? null : wrapper.getPropertyValue(sortProperty);
+        return new KeysetCursor(sortProperty, direction, id, sortValue == null ? null : sortValue.toString());
+    }
+
+    /**
+     * {@code sort > last OR (sort = last AND id > lastId)}, with the comparisons
+     * flipped for descending order. A null on either side cannot be compared, so
+     * the null rows are matched with {@code IS NULL} according to where they sort.
+     * Empty for the first page.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public List<Predicate> seekPredicates(CriteriaBuilder cb, Path<?> sortPath, Path<Long> idPath) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (isFirst())
+            return predicates;
+        if (isSortedById()) {
+            predicates.add(beyond(cb, idPath, lastId));
+            return predicates;
+        }
+        Predicate sameNullRow = cb.and(cb.isNull(sortPath), beyond(cb, idPath, lastId));
+        if (lastSortValue == null) {
+            predicates.add(direction.isAscending() ? cb.or(sameNullRow, cb.isNotNull(sortPath)) : sameNullRow);
+            return predicates;
+        }
+        Expression<Comparable> sortExpression = (Expression<Comparable>) sortPath;
+        Comparable sortValue = (Comparable) parse(lastSortValue, sortPath.getJavaType());
+        Predicate after = cb.or(
+                beyond(cb, sortExpression, sortValue),
+                cb.and(cb.equal(sortExpression, sortValue), beyond(cb, idPath, lastId)));
+        predicates.add(direction.isAscending() ? after : cb.or(after, cb.isNull(sortPath)));
+        return predicates;
+    }
+
+    public List<Order> orders(CriteriaBuilder cb, Path<?> sortPath, Path<Long> idPath) {
+        List<Order> orders = new ArrayList<>();
+        if (!isSortedById())
+            orders.add(direction.isAscending() ? cb.asc(sortPath) : cb.desc(sortPath));
+        orders.add(direction.isAscending() ? cb.asc(idPath) : cb.desc(idPath));
+        return orders;
+    }
+
+    /**
+     * The same {@code (sortProperty, id)} order as {@link #orders}, for merging rows
+     * fetched by separate queries.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> Comparator<T> comparator() {
+        Comparator<T> bySort = Comparator.comparing(row -> (Comparable) (isSortedById() ? null
+                        : new BeanWrapperImpl(row).getPropertyValue(sortProperty)),
+                Comparator.nullsFirst(Comparator.naturalOrder()));
+        Comparator<T> order = bySort.thenComparing(row -> (Long) new BeanWrapperImpl(row).getPropertyValue(ID));
+        return direction.isAscending() ? order : order.reversed();
+    }
+
+    private static String decodeSortValue(String encoded) {
+        if (NULL_VALUE.equals(encoded))
+            return null;
+        if (!encoded.startsWith(VALUE_PREFIX))
+            throw new IllegalArgumentException("Invalid cursor.");
+        return encoded.substring(VALUE_PREFIX.length());
+    }
+
+    private static Object parse(String value, Class<?> type) {
+        if (LocalDate.class.equals(type))
+            return LocalDate.parse(value);
+        return CONVERSION.convert(value, type);
+    }
+
+    private boolean isSortedById() {
+        return ID.equals(sortProperty);
+    }
+
+    private <Y extends Comparable<? super Y>> Predicate beyond(CriteriaBuilder cb, Expression<? extends Y> path, Y value) {
+        return direction.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+}
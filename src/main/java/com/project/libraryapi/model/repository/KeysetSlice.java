@@ -0,0 +1,33 @@
+package com.project.libraryapi.model.repository;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Value
+public class KeysetSlice<T> {
+
+    List<T> content;
+    KeysetCursor next;
+
+    /**
+     * Builds the slice from a query that fetched one row more than requested; that
+     * extra row only tells whether a next page exists.
+     */
+    public static <T> KeysetSlice<T> of(List<T> rows, int size, KeysetCursor cursor) {
+        if (rows.size() <= size)
+            return new KeysetSlice<>(rows, null);
+        List<T> content = rows.subList(0, size);
+        return new KeysetSlice<>(content, cursor.after(content.get(size - 1)));
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    public <R> KeysetSlice<R> map(Function<? super T, ? extends R> converter) {
+        return new KeysetSlice<>(content.stream().map(converter).collect(Collectors.toList()), next);
+    }
+}
@@ -2,27 +2,130 @@ package com.project.libraryapi.model.repository;
 
 import com.project.libraryapi.model.entity.Book;
 import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanState;
+import com.project.libraryapi.model.projection.LoanView;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 @Repository
-public interface LoanRepository extends JpaRepository<Loan, Long> {
+public interface LoanRepository extends JpaRepository<Loan, Long>, LoanRepositoryCustom {
 
     @Query(value = "SELECT CASE WHEN (COUNT(l.id) > 0) THEN true ELSE false END" +
             " FROM Loan l" +
             " WHERE l.book = :book" +
-            " AND (l.returned IS NULL OR l.returned IS false)")
+            " AND l.returned = false")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    @Query(value = "SELECT l" +
-            " FROM Loan AS l" +
-            " JOIN l.book AS b" +
-            " WHERE b.isbn = :isbn" +
-            " OR l.customer = :customer")
-    Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer, Pageable pageRequest);
+    @Query("SELECT l.activeBookId FROM Loan l WHERE l.activeBookId IS NOT NULL")
+    Set<Long> findActiveBookIds();
+
+    /**
+     * Id bounds of the open loans taken before the cutoff, read from the
+     * {@code (returned, loan_date)} index. The overdue-loan job walks only the ids
+     * between them.
+     */
+    @Query("SELECT MIN(l.id) FROM Loan l WHERE l.returned = false AND l.loanDate < :cutoff")
+    Optional<Long> findMinOverdueId(@Param("cutoff") LocalDate cutoff);
+
+    @Query("SELECT MAX(l.id) FROM Loan l WHERE l.returned = false AND l.loanDate < :cutoff")
+    Optional<Long> findMaxOverdueId(@Param("cutoff") LocalDate cutoff);
+
+    /**
+     * Both state reads lock the loans they return, so a concurrent batch return
+     * waits for this one and then reads them as returned rather than reporting
+     * them as closed a second time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.project.libraryapi.model.projection.LoanState(l.id, l.returned, b.id, b.isbn)" +
+            " FROM Loan l JOIN l.book b WHERE l.id IN :ids")
+    List<LoanState> findStatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.project.libraryapi.model.projection.LoanState(l.id, l.returned, b.id, b.isbn)" +
+            " FROM Loan l JOIN l.book b WHERE b.isbn IN :isbns AND l.returned = false")
+    List<LoanState> findOpenStatesByBookIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Bulk update, so the entity callbacks do not run: the active book id is
+     * cleared here. Loans already returned are left untouched.
+     */
+    @Modifying
+    @Query("UPDATE Loan l SET l.returned = true, l.activeBookId = null WHERE l.id IN :ids AND l.returned = false")
+    int markReturned(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Changes only a loan that is still open, so the count tells whether it flipped.
+     */
+    @Modifying
+    @Query("UPDATE Loan l SET l.returned = true, l.activeBookId = null WHERE l.id = :id AND l.returned = false")
+    int returnById(@Param("id") long id);
+
+    /**
+     * Changes only a returned loan. Fails on the unique active-loan constraint when
+     * the book was lent again since.
+     */
+    @Modifying
+    @Query("UPDATE Loan l SET l.returned = false, l.activeBookId = l.book.id WHERE l.id = :id AND l.returned = true")
+    int reopenById(@Param("id") long id);
+
+    @Override
+    @EntityGraph(attributePaths = "book")
+    Optional<Loan> findById(Long id);
+
+    @Query(value = "SELECT new com.project.libraryapi.model.projection.LoanView(" +
+            "l.id, l.customer, b.id, b.title, b.author, b.isbn) FROM Loan l JOIN l.book b WHERE b.isbn = :isbn",
+            countQuery = "SELECT COUNT(l) FROM Loan l JOIN l.book b WHERE b.isbn = :isbn")
+    Page<LoanView> findViewsByBookIsbn(@Param("isbn") String isbn, Pageable pageRequest);
+
+    @Query(value = "SELECT new com.project.libraryapi.model.projection.LoanView(" +
+            "l.id, l.customer, b.id, b.title, b.author, b.isbn) FROM Loan l JOIN l.book b WHERE l.customer = :customer",
+            countQuery = "SELECT COUNT(l) FROM Loan l WHERE l.customer = :customer")
+    Page<LoanView> findViewsByCustomer(@Param("customer") String customer, Pageable pageRequest);
+
+    @Query("SELECT new com.project.libraryapi.model.projection.LoanView(" +
+            "l.id, l.customer, b.id, b.title, b.author, b.isbn) FROM Loan l JOIN l.book b WHERE b.isbn = :isbn")
+    Slice<LoanView> findViewSliceByBookIsbn(@Param("isbn") String isbn, Pageable pageRequest);
+
+    @Query("SELECT new com.project.libraryapi.model.projection.LoanView(" +
+            "l.id, l.customer, b.id, b.title, b.author, b.isbn) FROM Loan l JOIN l.book b WHERE l.customer = :customer")
+    Slice<LoanView> findViewSliceByCustomer(@Param("customer") String customer, Pageable pageRequest);
+
+    @Query("SELECT new com.project.libraryapi.model.projection.LoanView(" +
+            "l.id, l.customer, b.id, b.title, b.author, b.isbn) FROM Loan l JOIN l.book b WHERE l.id IN :ids")
+    List<LoanView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    default Page<LoanView> findViewsByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest) {
+        Page<Long> ids = findIdsByBookIsbnOrCustomer(isbn, customer, pageRequest);
+        if (ids.isEmpty())
+            return ids.map(id -> null);
+        Map<Long, LoanView> loans = findViewsByIdIn(ids.getContent())
+                .stream()
+                .collect(Collectors.toMap(LoanView::getId, Function.identity()));
+        return ids.map(loans::get);
+    }
+
+    default Slice<LoanView> findViewSliceByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest) {
+        Slice<Long> ids = findIdSliceByBookIsbnOrCustomer(isbn, customer, pageRequest);
+        if (ids.isEmpty())
+            return ids.map(id -> null);
+        Map<Long, LoanView> loans = findViewsByIdIn(ids.getContent())
+                .stream()
+                .collect(Collectors.toMap(LoanView::getId, Function.identity()));
+        return ids.map(loans::get);
+    }
 }
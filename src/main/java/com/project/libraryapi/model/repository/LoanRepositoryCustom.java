@@ -0,0 +1,23 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface LoanRepositoryCustom {
+
+    /**
+     * Ids of the loans of the book with the given ISBN or of the given customer.
+     * Sorted by entity property names, like the other listings, always ending on the id.
+     */
+    Page<Long> findIdsByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest);
+
+    /**
+     * Same ids and order as {@link #findIdsByBookIsbnOrCustomer}, reading one row past
+     * the page instead of counting the matches.
+     */
+    Slice<Long> findIdSliceByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest);
+
+    KeysetSlice<Loan> findByBookIsbnOrCustomerAfter(String isbn, String customer, KeysetCursor cursor, int size);
+}
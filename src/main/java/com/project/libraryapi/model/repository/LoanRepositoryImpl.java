@@ -0,0 +1,145 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.entity.Loan;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class LoanRepositoryImpl implements LoanRepositoryCustom {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "l.id",
+            "customer", "l.customer",
+            "loanDate", "l.loan_date",
+            "returned", "l.returned");
+
+    /**
+     * The OR across two tables written as a UNION, which lets each branch use its own
+     * index (ISBN and customer).
+     */
+    private static final String UNION_IDS = "SELECT li.id FROM loan li JOIN book b ON b.id = li.id_book WHERE b.isbn = :isbn" +
+            " UNION" +
+            " SELECT lc.id FROM loan lc WHERE lc.customer = :customer";
+
+    private final EntityManager entityManager;
+
+    public LoanRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<Long> findIdsByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest) {
+        List<Long> ids = findUnionIds(isbn, customer, pageRequest.getSort(),
+                pageRequest.isPaged() ? pageRequest.getOffset() : 0,
+                pageRequest.isPaged() ? pageRequest.getPageSize() : null);
+        return PageableExecutionUtils.getPage(ids, pageRequest, () -> countUnionIds(isbn, customer));
+    }
+
+    @Override
+    public Slice<Long> findIdSliceByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest) {
+        if (pageRequest.isUnpaged())
+            return new SliceImpl<>(findUnionIds(isbn, customer, pageRequest.getSort(), 0, null), pageRequest, false);
+        int size = pageRequest.getPageSize();
+        List<Long> ids = findUnionIds(isbn, customer, pageRequest.getSort(), pageRequest.getOffset(), size + 1);
+        boolean hasNext = ids.size() > size;
+        return new SliceImpl<>(hasNext ? ids.subList(0, size) : ids, pageRequest, hasNext);
+    }
+
+    /**
+     * With both filters, each one runs as its own indexed seek and the two ordered
+     * results are merged here, instead of one OR that scans the loan table.
+     */
+    @Override
+    public KeysetSlice<Loan> findByBookIsbnOrCustomerAfter(String isbn, String customer, KeysetCursor cursor, int size) {
+        if (isbn == null && customer == null)
+            return new KeysetSlice<>(Collections.emptyList(), null);
+        if (isbn == null || customer == null)
+            return KeysetSlice.of(findAfter(isbn, customer, cursor, size + 1), size, cursor);
+
+        Map<Long, Loan> merged = new LinkedHashMap<>();
+        Stream.concat(findAfter(isbn, null, cursor, size + 1).stream(), findAfter(null, customer, cursor, size + 1).stream())
+                .forEach(loan -> merged.putIfAbsent(loan.getId(), loan));
+        List<Loan> rows = merged.values()
+                .stream()
+                .sorted(cursor.comparator())
+                .limit(size + 1)
+                .collect(Collectors.toList());
+        return KeysetSlice.of(rows, size, cursor);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Loan> findAfter(String isbn, String customer, KeysetCursor cursor, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Loan> query = cb.createQuery(Loan.class);
+        Root<Loan> loan = query.from(Loan.class);
+        Join<Loan, Book> book = (Join<Loan, Book>) loan.<Loan, Book>fetch("book");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (isbn != null)
+            predicates.add(cb.equal(book.get("isbn"), isbn));
+        if (customer != null)
+            predicates.add(cb.equal(loan.get("customer"), customer));
+        predicates.addAll(cursor.seekPredicates(cb, loan.get(cursor.getSortProperty()), loan.get("id")));
+
+        query.where(predicates.toArray(new Predicate[0]))
+                .orderBy(cursor.orders(cb, loan.get(cursor.getSortProperty()), loan.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private List<Long> findUnionIds(String isbn, String customer, Sort sort, long offset, Integer limit) {
+        Query query = entityManager.createNativeQuery("SELECT l.id FROM loan l WHERE l.id IN (" + UNION_IDS + ")" +
+                        " ORDER BY " + orderBy(sort))
+                .setParameter("isbn", isbn)
+                .setParameter("customer", customer)
+                .setFirstResult(Math.toIntExact(offset));
+        if (limit != null)
+            query.setMaxResults(limit);
+        return ((List<?>) query.getResultList())
+                .stream()
+                .map(id -> ((Number) id).longValue())
+                .collect(Collectors.toList());
+    }
+
+    private long countUnionIds(String isbn, String customer) {
+        Number count = (Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM (" + UNION_IDS + ")")
+                .setParameter("isbn", isbn)
+                .setParameter("customer", customer)
+                .getSingleResult();
+        return count.longValue();
+    }
+
+    /**
+     * Sort properties are translated to columns, so the union query takes the same
+     * ones as the JPQL listings; the id keeps the offset pages stable.
+     */
+    private static String orderBy(Sort sort) {
+        return Stream.concat(
+                        sort.stream().map(order -> column(order.getProperty()) + " " + order.getDirection().name()),
+                        Stream.of("l.id"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String column(String property) {
+        String column = SORT_COLUMNS.get(property);
+        if (column == null)
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        return column;
+    }
+}
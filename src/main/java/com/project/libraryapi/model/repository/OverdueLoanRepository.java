@@ -0,0 +1,42 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.entity.OverdueLoan;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface OverdueLoanRepository extends JpaRepository<OverdueLoan, Long> {
+
+    @Modifying
+    @Query("DELETE FROM OverdueLoan o WHERE o.loanId > :afterId AND o.loanId <= :upToId")
+    int deleteByLoanIdRange(@Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    /**
+     * Copies the overdue loans of the id range straight from the loan table, so a
+     * chunk never loads its loans into the application.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO overdue_loan (loan_id, loan_date)" +
+            " SELECT l.id, l.loan_date FROM loan l" +
+            " WHERE l.returned = FALSE AND l.loan_date < :cutoff AND l.id > :afterId AND l.id <= :upToId",
+            nativeQuery = true)
+    int insertOverdueInRange(@Param("cutoff") LocalDate cutoff, @Param("afterId") long afterId, @Param("upToId") long upToId);
+
+    /**
+     * Oldest loans first; loans returned since the last run are left out.
+     */
+    @Query(value = "SELECT new com.project.libraryapi.model.projection.OverdueLoanView(" +
+            "l.id, l.customer, l.loanDate, b.id, b.title, b.author, b.isbn)" +
+            " FROM OverdueLoan o, Loan l JOIN l.book b" +
+            " WHERE l.id = o.loanId AND l.returned = false ORDER BY o.loanDate, o.loanId",
+            countQuery = "SELECT COUNT(o) FROM OverdueLoan o, Loan l WHERE l.id = o.loanId AND l.returned = false")
+    Page<OverdueLoanView> findViews(Pageable pageRequest);
+}
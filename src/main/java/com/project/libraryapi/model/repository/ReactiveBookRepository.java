@@ -0,0 +1,13 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.row.BookRow;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveBookRepository extends R2dbcRepository<BookRow, Long>, ReactiveBookRepositoryCustom {
+    Mono<Boolean> existsByIsbn(String isbn);
+
+    Mono<BookRow> findByIsbn(String isbn);
+}
@@ -0,0 +1,12 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.row.BookRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookRepositoryCustom {
+
+    Mono<Page<BookView>> findViewsByFilters(BookRow filter, Pageable pageRequest);
+}
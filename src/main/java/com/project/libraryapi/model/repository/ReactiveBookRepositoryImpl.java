@@ -0,0 +1,46 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.row.BookRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.data.relational.core.dialect.Escaper;
+import org.springframework.data.relational.core.query.Criteria;
+import org.springframework.data.relational.core.query.Query;
+import reactor.core.publisher.Mono;
+
+public class ReactiveBookRepositoryImpl implements ReactiveBookRepositoryCustom {
+
+    private final R2dbcEntityTemplate template;
+
+    public ReactiveBookRepositoryImpl(R2dbcEntityTemplate template) {
+        this.template = template;
+    }
+
+    /**
+     * Same matching as the servlet listing: the id by equality and the text
+     * fields as case-insensitive substrings, ignoring whatever is not set.
+     */
+    @Override
+    public Mono<Page<BookView>> findViewsByFilters(BookRow filter, Pageable pageRequest) {
+        Criteria criteria = Criteria.empty();
+        if (filter.getId() != null)
+            criteria = criteria.and("id").is(filter.getId());
+        criteria = containing(criteria, "title", filter.getTitle());
+        criteria = containing(criteria, "author", filter.getAuthor());
+        criteria = containing(criteria, "isbn", filter.getIsbn());
+
+        Mono<Long> count = template.count(Query.query(criteria), BookRow.class);
+        return template.select(Query.query(criteria).with(pageRequest), BookRow.class)
+                .map(book -> new BookView(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn()))
+                .collectList()
+                .flatMap(content -> ReactivePages.of(content, pageRequest, count));
+    }
+
+    private static Criteria containing(Criteria criteria, String column, String value) {
+        if (value == null)
+            return criteria;
+        return criteria.and(column).like("%" + Escaper.DEFAULT.escape(value) + "%").ignoreCase(true);
+    }
+}
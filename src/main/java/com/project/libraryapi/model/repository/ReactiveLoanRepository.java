@@ -0,0 +1,26 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.row.LoanRow;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface ReactiveLoanRepository extends R2dbcRepository<LoanRow, Long>, ReactiveLoanRepositoryCustom {
+    Mono<Boolean> existsByActiveBookId(Long bookId);
+
+    /**
+     * Same guarded updates as {@code LoanRepository#returnById} and
+     * {@code LoanRepository#reopenById}: only a loan whose status differs is
+     * changed, so the count tells whether it flipped.
+     */
+    @Modifying
+    @Query("UPDATE loan SET returned = TRUE, active_book_id = NULL WHERE id = :id AND returned = FALSE")
+    Mono<Integer> returnById(long id);
+
+    @Modifying
+    @Query("UPDATE loan SET returned = FALSE, active_book_id = id_book WHERE id = :id AND returned = TRUE")
+    Mono<Integer> reopenById(long id);
+}
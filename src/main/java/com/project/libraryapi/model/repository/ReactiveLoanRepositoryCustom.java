@@ -0,0 +1,14 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveLoanRepositoryCustom {
+
+    Mono<Page<LoanView>> findViewsByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest);
+
+    Mono<Page<OverdueLoanView>> findOverdueViews(Pageable pageRequest);
+}
@@ -0,0 +1,112 @@
+package com.project.libraryapi.model.repository;
+
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import io.r2dbc.spi.Row;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ReactiveLoanRepositoryImpl implements ReactiveLoanRepositoryCustom {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "l.id",
+            "customer", "l.customer",
+            "loanDate", "l.loan_date");
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveLoanRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Same query shapes as the servlet listing: one indexed lookup per filter, and
+     * a union of both when the two are given instead of an OR across the join.
+     */
+    @Override
+    public Mono<Page<LoanView>> findViewsByBookIsbnOrCustomer(String isbn, String customer, Pageable pageRequest) {
+        String where = where(isbn, customer);
+        String select = "SELECT l.id, l.customer, b.id AS book_id, b.title, b.author, b.isbn" +
+                " FROM loan l JOIN book b ON b.id = l.id_book WHERE " + where +
+                " ORDER BY " + orderBy(pageRequest.getSort());
+        if (pageRequest.isPaged())
+            select += " LIMIT " + pageRequest.getPageSize() + " OFFSET " + pageRequest.getOffset();
+
+        Mono<Long> count = bind(databaseClient.sql("SELECT COUNT(*) FROM loan l JOIN book b ON b.id = l.id_book WHERE " + where), isbn, customer)
+                .map(row -> row.get(0, Long.class))
+                .one();
+        return bind(databaseClient.sql(select), isbn, customer)
+                .map(ReactiveLoanRepositoryImpl::toView)
+                .all()
+                .collectList()
+                .flatMap(content -> ReactivePages.of(content, pageRequest, count));
+    }
+
+    /**
+     * Same query as {@link OverdueLoanRepository#findViews}: oldest loans first,
+     * without the ones returned since the last run of the overdue-loan job.
+     */
+    @Override
+    public Mono<Page<OverdueLoanView>> findOverdueViews(Pageable pageRequest) {
+        String from = " FROM overdue_loan o JOIN loan l ON l.id = o.loan_id JOIN book b ON b.id = l.id_book WHERE l.returned = FALSE";
+        String select = "SELECT l.id, l.customer, l.loan_date, b.id AS book_id, b.title, b.author, b.isbn" + from +
+                " ORDER BY o.loan_date, o.loan_id";
+        if (pageRequest.isPaged())
+            select += " LIMIT " + pageRequest.getPageSize() + " OFFSET " + pageRequest.getOffset();
+
+        Mono<Long> count = databaseClient.sql("SELECT COUNT(*)" + from)
+                .map(row -> row.get(0, Long.class))
+                .one();
+        return databaseClient.sql(select)
+                .map(row -> new OverdueLoanView(row.get("id", Long.class), row.get("customer", String.class),
+                        row.get("loan_date", LocalDate.class), row.get("book_id", Long.class), row.get("title", String.class),
+                        row.get("author", String.class), row.get("isbn", String.class)))
+                .all()
+                .collectList()
+                .flatMap(content -> ReactivePages.of(content, pageRequest, count));
+    }
+
+    private static String where(String isbn, String customer) {
+        if (customer == null)
+            return "b.isbn = :isbn";
+        if (isbn == null)
+            return "l.customer = :customer";
+        return "l.id IN (SELECT lb.id FROM loan lb JOIN book bb ON bb.id = lb.id_book WHERE bb.isbn = :isbn" +
+                " UNION SELECT lc.id FROM loan lc WHERE lc.customer = :customer)";
+    }
+
+    private static String orderBy(Sort sort) {
+        return Stream.concat(
+                        sort.stream().map(order -> column(order.getProperty()) + " " + order.getDirection().name()),
+                        Stream.of("l.id"))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String column(String property) {
+        String column = SORT_COLUMNS.get(property);
+        if (column == null)
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        return column;
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec, String isbn, String customer) {
+        if (isbn != null)
+            spec = spec.bind("isbn", isbn);
+        if (customer != null)
+            spec = spec.bind("customer", customer);
+        return spec;
+    }
+
+    private static LoanView toView(Row row) {
+        return new LoanView(row.get("id", Long.class), row.get("customer", String.class), row.get("book_id", Long.class),
+                row.get("title", String.class), row.get("author", String.class), row.get("isbn", String.class));
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.libraryapi.model.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@code PageableExecutionUtils}: the count query only
+ * runs when the page content alone cannot tell the total.
+ */
+final class ReactivePages {
+
+    private ReactivePages() {
+    }
+
+    static <T> Mono<Page<T>> of(List<T> content, Pageable pageRequest, Mono<Long> count) {
+        if (pageRequest.isUnpaged() || pageRequest.getOffset() == 0 && pageRequest.getPageSize() > content.size())
+            return Mono.just(new PageImpl<>(content, pageRequest, content.size()));
+        if (!content.isEmpty() && pageRequest.getPageSize() > content.size())
+            return Mono.just(new PageImpl<>(content, pageRequest, pageRequest.getOffset() + content.size()));
+        return count.map(total -> new PageImpl<>(content, pageRequest, total));
+    }
+}
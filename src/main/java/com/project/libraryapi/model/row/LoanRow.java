@@ -0,0 +1,46 @@
+package com.project.libraryapi.model.row;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+
+/**
+ * The {@code loan} table as read and written by the reactive stack. The book is
+ * kept as its id, since R2DBC does not map associations.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Table("loan")
+public class LoanRow {
+
+    @Id
+    private Long id;
+
+    private String customer;
+
+    @Column("id_book")
+    private Long bookId;
+
+    private LocalDate loanDate;
+
+    @Builder.Default
+    private Boolean returned = false;
+
+    private Long activeBookId;
+
+    /**
+     * Same rule as {@code Loan#syncActiveBook}, so the unique active-loan
+     * constraint holds for rows written by either stack.
+     */
+    public void syncActiveBook() {
+        activeBookId = bookId == null || Boolean.TRUE.equals(returned) ? null : bookId;
+    }
+}
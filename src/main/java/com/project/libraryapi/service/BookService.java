@@ -2,21 +2,41 @@ package com.project.libraryapi.service;
 
 
 import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookService {
     Book save(Book book);
 
+    List<Book> saveAll(List<Book> books);
+
     Optional<Book> findById(long id);
 
+    Optional<BookVersion> findCachedVersion(long id);
+
     void delete(Book book);
 
     Book updateBook(Book book);
 
-    Page<Book> findByFilters(Book book, Pageable pageRequest);
+    Optional<BookVersion> patchBook(long id, String title, String author, Collection<Long> expectedVersions);
+
+    Page<BookView> findViewsByFilters(Book book, Pageable pageRequest);
+
+    Slice<BookView> findViewSliceByFilters(Book book, Pageable pageRequest);
+
+    KeysetSlice<Book> findByFiltersAfter(Book book, KeysetCursor cursor, int size);
 
     Optional<Book> findByIsbn(String isbn);
+
+    void forEachBook(Consumer<? super Book> action);
 }
@@ -1,9 +1,17 @@
 package com.project.libraryapi.service;
 
 import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.LoanReturnDTO;
+import com.project.libraryapi.api.dto.LoanReturnResultDTO;
+import com.project.libraryapi.model.entity.Book;
 import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.Optional;
 
@@ -14,7 +22,17 @@ public interface LoanService {
 
     Optional<Loan> findById(long id);
 
-    Loan update(Loan loan);
+    Optional<Loan> updateReturned(long id, boolean returned);
 
-    Page<Loan> find(LoanInputDTO loanInputDTO, Pageable pageRequest);
+    LoanReturnResultDTO returnAll(LoanReturnDTO loanReturnDTO);
+
+    Page<LoanView> findViews(LoanInputDTO loanInputDTO, Pageable pageRequest);
+
+    Slice<LoanView> findViewSlice(LoanInputDTO loanInputDTO, Pageable pageRequest);
+
+    KeysetSlice<Loan> findAfter(LoanInputDTO loanInputDTO, KeysetCursor cursor, int size);
+
+    boolean isAvailable(Book book);
+
+    Page<OverdueLoanView> findOverdue(Pageable pageRequest);
 }
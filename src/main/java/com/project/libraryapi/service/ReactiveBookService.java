@@ -0,0 +1,26 @@
+package com.project.libraryapi.service;
+
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.row.BookRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+public interface ReactiveBookService {
+    Mono<BookRow> save(BookRow book);
+
+    Mono<BookRow> findById(long id);
+
+    Optional<BookVersion> findCachedVersion(long id);
+
+    Mono<Void> delete(BookRow book);
+
+    Mono<BookRow> updateBook(BookRow book);
+
+    Mono<Page<BookView>> findViewsByFilters(BookRow book, Pageable pageRequest);
+
+    Mono<BookRow> findByIsbn(String isbn);
+}
@@ -0,0 +1,25 @@
+package com.project.libraryapi.service;
+
+import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import com.project.libraryapi.model.row.BookRow;
+import com.project.libraryapi.model.row.LoanRow;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveLoanService {
+
+    Mono<LoanRow> save(LoanRow loan);
+
+    Mono<LoanRow> findById(long id);
+
+    Mono<LoanRow> updateReturned(long id, boolean returned);
+
+    Mono<Page<LoanView>> findViews(LoanInputDTO loanInputDTO, Pageable pageRequest);
+
+    Mono<Boolean> isAvailable(BookRow book);
+
+    Mono<Page<OverdueLoanView>> findOverdue(Pageable pageRequest);
+}
@@ -0,0 +1,55 @@
+package com.project.libraryapi.service.cache;
+
+import com.project.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight book lookups by id and by ISBN, so a burst of requests for the
+ * same book runs one query. Published as {@code library.book.lookups.loads} and
+ * {@code library.book.lookups.coalesced}, tagged with the lookup.
+ */
+@Component
+public class BookLoadCoalescer implements MeterBinder {
+
+    private final SingleFlight<Long, Optional<Book>> byId = new SingleFlight<>(BookLoadCoalescer::copy);
+    private final SingleFlight<String, Optional<Book>> byIsbn = new SingleFlight<>(BookLoadCoalescer::copy);
+
+    public Optional<Book> findById(Long id, Supplier<Optional<Book>> loader) {
+        return byId.load(id, loader);
+    }
+
+    public Optional<Book> findByIsbn(String isbn, Supplier<Optional<Book>> loader) {
+        return byIsbn.load(isbn, loader);
+    }
+
+    public long coalesced() {
+        return byId.coalesced() + byIsbn.coalesced();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "id", byId);
+        bind(registry, "isbn", byIsbn);
+    }
+
+    private static void bind(MeterRegistry registry, String lookup, SingleFlight<?, ?> flights) {
+        FunctionCounter.builder("library.book.lookups.loads", flights, SingleFlight::loads)
+                .tag("lookup", lookup)
+                .description("Book lookups that ran a query")
+                .register(registry);
+        FunctionCounter.builder("library.book.lookups.coalesced", flights, SingleFlight::coalesced)
+                .tag("lookup", lookup)
+                .description("Book lookups answered by a query another request was already running")
+                .register(registry);
+    }
+
+    private static Optional<Book> copy(Optional<Book> book) {
+        return book.map(found -> found.toBuilder().build());
+    }
+}
@@ -0,0 +1,62 @@
+package com.project.libraryapi.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.project.libraryapi.model.projection.BookVersion;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Last known version of each recently read or written book, so a conditional
+ * GET for an unchanged book is answered without the database. Writes through
+ * this instance replace the entry right away; changes made by other instances
+ * are only seen once the entry expires. Published as the {@code cache.*}
+ * metrics tagged {@code cache=book.version}.
+ */
+@Component
+public class BookVersionCache implements MeterBinder {
+
+    private final Cache<Long, BookVersion> cache;
+
+    @Autowired
+    public BookVersionCache(@Value("${library.book-version-cache.maximum-size:10000}") long maximumSize,
+                            @Value("${library.book-version-cache.expire-after-write:1m}") Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, Ticker.systemTicker());
+    }
+
+    BookVersionCache(long maximumSize, Duration expireAfterWrite, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<BookVersion> get(Long id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public void put(Long id, BookVersion version) {
+        if (id != null && version.getVersion() != null)
+            cache.put(id, version);
+    }
+
+    public void invalidate(Long id) {
+        if (id != null)
+            cache.invalidate(id);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "book.version");
+    }
+}
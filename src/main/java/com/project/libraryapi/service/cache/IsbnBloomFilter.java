@@ -0,0 +1,228 @@
+package com.project.libraryapi.service.cache;
+
+import com.project.libraryapi.model.repository.BookRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scalable Bloom filter of every registered ISBN. A "definitely absent" answer
+ * lets {@code save} skip the existence query; the unique constraint on the ISBN
+ * column stays the final guard. When the current filter reaches its capacity a
+ * new one is appended with twice the capacity and half the false-positive rate,
+ * so the compound rate stays below the configured one as the catalog grows.
+ * Until the filter has been loaded from the table every ISBN "might" exist.
+ */
+@Component
+public class IsbnBloomFilter implements SmartInitializingSingleton, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(IsbnBloomFilter.class);
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final BookRepository repository;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final List<Filter> filters = new CopyOnWriteArrayList<>();
+    private final ReentrantLock growLock = new ReentrantLock();
+    private final AtomicLong absentChecks = new AtomicLong();
+    private final AtomicLong presentChecks = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+    private volatile boolean ready;
+
+    @Autowired
+    public IsbnBloomFilter(BookRepository repository,
+                           @Value("${library.isbn-bloom-filter.enabled:true}") boolean enabled,
+                           @Value("${library.isbn-bloom-filter.expected-insertions:1000000}") long expectedInsertions,
+                           @Value("${library.isbn-bloom-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1)
+            throw new IllegalArgumentException("Invalid Bloom filter configuration.");
+        this.repository = repository;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled)
+            rebuild();
+    }
+
+    public void rebuild() {
+        ready = false;
+        filters.clear();
+        filters.add(new Filter(expectedInsertions, falsePositiveRate * (1 - TIGHTENING_RATIO)));
+        long start = System.currentTimeMillis();
+        repository.forEachIsbn(this::add);
+        ready = true;
+        log.info("ISBN Bloom filter built with {} sub-filters in {} ms", filters.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean mightContain(String isbn) {
+        if (!ready || isbn == null)
+            return true;
+        long hash = hash(isbn);
+        for (Filter filter : filters) {
+            if (filter.mightContain(hash)) {
+                presentChecks.incrementAndGet();
+                return true;
+            }
+        }
+        absentChecks.incrementAndGet();
+        return false;
+    }
+
+    public void add(String isbn) {
+        if (isbn == null || filters.isEmpty())
+            return;
+        long hash = hash(isbn);
+        if (filters.stream().anyMatch(filter -> filter.mightContain(hash)))
+            return;
+        current().add(hash);
+    }
+
+    /**
+     * Called when the database did not know an ISBN the filter reported as
+     * possibly present.
+     */
+    public void recordFalsePositive() {
+        falsePositives.incrementAndGet();
+    }
+
+    public double observedFalsePositiveRate() {
+        long negatives = absentChecks.get() + falsePositives.get();
+        return negatives == 0 ? 0 : (double) falsePositives.get() / negatives;
+    }
+
+    public int filterCount() {
+        return filters.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.isbn.bloom.checks", absentChecks, AtomicLong::get)
+                .tag("result", "absent")
+                .description("ISBN checks answered by the Bloom filter")
+                .register(registry);
+        FunctionCounter.builder("library.isbn.bloom.checks", presentChecks, AtomicLong::get)
+                .tag("result", "maybe")
+                .register(registry);
+        FunctionCounter.builder("library.isbn.bloom.false.positives", falsePositives, AtomicLong::get)
+                .description("ISBNs reported as possibly present that the database did not know")
+                .register(registry);
+        Gauge.builder("library.isbn.bloom.false.positive.rate", this, IsbnBloomFilter::observedFalsePositiveRate)
+                .description("False positives over all checks for unregistered ISBNs")
+                .register(registry);
+        Gauge.builder("library.isbn.bloom.filters", this, IsbnBloomFilter::filterCount)
+                .register(registry);
+    }
+
+    private Filter current() {
+        Filter last = filters.get(filters.size() - 1);
+        if (!last.isFull())
+            return last;
+        growLock.lock();
+        try {
+            last = filters.get(filters.size() - 1);
+            if (last.isFull()) {
+                last = new Filter(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+                filters.add(last);
+            }
+            return last;
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes followed by the MurmurHash3 finalizer.
+     */
+    private static long hash(String isbn) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : isbn.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static class Filter {
+
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray bits;
+        private final AtomicLong insertions = new AtomicLong();
+
+        Filter(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, (optimalBits + 63) / 64));
+            this.bitCount = (long) bits.length() * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        }
+
+        boolean isFull() {
+            return insertions.get() >= capacity;
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        void add(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            insertions.incrementAndGet();
+        }
+
+        private long index(int combinedHash) {
+            return Integer.toUnsignedLong(combinedHash) % bitCount;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.project.libraryapi.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.project.libraryapi.model.entity.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of ISBN lookups, including the ones that found nothing. Entries
+ * are detached snapshots; callers always get their own copy, so changing a
+ * returned book never leaks into the cache. Hit, miss and eviction counts are
+ * published as the {@code cache.*} metrics tagged {@code cache=isbn}. The ISBNs
+ * each cached book is stored under are kept aside, so the entries of a book can be
+ * dropped without its ISBN at hand.
+ */
+@Component
+public class IsbnCache implements MeterBinder {
+
+    private final Cache<String, Optional<Book>> cache;
+    private final Map<Long, Set<String>> isbnsByBook = new ConcurrentHashMap<>();
+
+    @Autowired
+    public IsbnCache(@Value("${library.isbn-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${library.isbn-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, Ticker.systemTicker());
+    }
+
+    IsbnCache(long maximumSize, Duration expireAfterWrite, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .ticker(ticker)
+                .evictionListener((String isbn, Optional<Book> cached, RemovalCause cause) -> forget(isbn, cached))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Book> get(String isbn, Function<String, Optional<Book>> loader) {
+        return cache.get(isbn, key -> {
+            Optional<Book> loaded = loader.apply(key).map(IsbnCache::copy);
+            loaded.ifPresent(book -> remember(key, book));
+            return loaded;
+        }).map(IsbnCache::copy);
+    }
+
+    /**
+     * Answers from a cached lookup when there is one. Otherwise asks the database,
+     * remembering only a negative answer, since a positive one carries no book.
+     * Loads run under the entry lock, so an invalidation racing with a load
+     * always wins.
+     */
+    public boolean exists(String isbn, Predicate<String> existsQuery) {
+        Optional<Book> cached = cache.get(isbn, key -> existsQuery.test(key) ? null : Optional.empty());
+        return cached == null || cached.isPresent();
+    }
+
+    /**
+     * Removes the entry under its lock, so a load of the same ISBN cannot slip in
+     * between dropping the entry and forgetting which book it pointed to.
+     */
+    public void invalidate(String isbn) {
+        if (isbn != null)
+            cache.asMap().computeIfPresent(isbn, (key, cached) -> {
+                forget(key, cached);
+                return null;
+            });
+    }
+
+    /**
+     * Drops the entry of the given ISBN and any entry still pointing to the book,
+     * which covers a book whose ISBN changed.
+     */
+    public void invalidate(Book book) {
+        invalidate(book.getIsbn());
+        invalidateBook(book.getId());
+    }
+
+    /**
+     * Drops any entry pointing to the book, for a change made without its ISBN at hand.
+     */
+    public void invalidateBook(Long id) {
+        if (id == null)
+            return;
+        Set<String> isbns = isbnsByBook.get(id);
+        if (isbns != null)
+            Set.copyOf(isbns).forEach(this::invalidate);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        cache.cleanUp();
+        return cache.estimatedSize();
+    }
+
+    int trackedBooks() {
+        cache.cleanUp();
+        return isbnsByBook.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "isbn");
+    }
+
+    private void remember(String isbn, Book book) {
+        if (book.getId() != null)
+            isbnsByBook.compute(book.getId(), (id, isbns) -> {
+                Set<String> remembered = isbns == null ? ConcurrentHashMap.newKeySet() : isbns;
+                remembered.add(isbn);
+                return remembered;
+            });
+    }
+
+    private void forget(String isbn, Optional<Book> cached) {
+        cached.map(Book::getId).ifPresent(id -> isbnsByBook.computeIfPresent(id, (key, isbns) -> {
+            isbns.remove(isbn);
+            return isbns.isEmpty() ? null : isbns;
+        }));
+    }
+
+    private static Book copy(Book book) {
+        return book.toBuilder().build();
+    }
+}
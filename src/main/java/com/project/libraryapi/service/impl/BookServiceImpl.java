@@ -3,35 +3,142 @@ package com.project.libraryapi.service.impl;
 import com.project.libraryapi.exception.BusinessException;
 import com.project.libraryapi.model.repository.BookRepository;
 import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import com.project.libraryapi.service.BookService;
-import org.springframework.data.domain.Example;
-import org.springframework.data.domain.ExampleMatcher;
+import com.project.libraryapi.service.cache.BookLoadCoalescer;
+import com.project.libraryapi.service.cache.BookVersionCache;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import com.project.libraryapi.service.cache.IsbnBloomFilter;
+import com.project.libraryapi.service.cache.IsbnCache;
+import com.project.libraryapi.service.search.BookSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-
-import java.util.Optional;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "library.service", histogram = true)
 public class BookServiceImpl implements BookService {
 
     private final BookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final IsbnCache isbnCache;
+    private final IsbnBloomFilter isbnFilter;
+    private final BookVersionCache versionCache;
+    private final BookLoadCoalescer loads;
+    private final BusinessMetrics metrics;
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, BookSearchIndex searchIndex, IsbnCache isbnCache,
+                           IsbnBloomFilter isbnFilter, BookVersionCache versionCache, BookLoadCoalescer loads,
+                           BusinessMetrics metrics) {
         this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.isbnCache = isbnCache;
+        this.isbnFilter = isbnFilter;
+        this.versionCache = versionCache;
+        this.loads = loads;
+        this.metrics = metrics;
     }
 
+    /**
+     * Only ISBNs the Bloom filter may have seen are checked against the database;
+     * the unique constraint on the column catches anything registered concurrently.
+     */
     @Override
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn()))
-            throw new BusinessException("ISBN already registered.");
-        return repository.save(book);
+        if(isbnFilter.mightContain(book.getIsbn()) && isbnCache.exists(book.getIsbn(), this::isRegistered))
+            throw duplicateIsbn();
+        Book savedBook;
+        try {
+            savedBook = repository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateIsbn();
+        }
+        isbnFilter.add(savedBook.getIsbn());
+        isbnCache.invalidate(savedBook.getIsbn());
+        searchIndex.index(savedBook);
+        rememberVersion(savedBook);
+        return savedBook;
+    }
+
+    private BusinessException duplicateIsbn() {
+        metrics.duplicateIsbn();
+        return new BusinessException("ISBN already registered.");
+    }
+
+    private boolean isRegistered(String isbn) {
+        boolean registered = repository.existsByIsbn(isbn);
+        if (!registered && isbnFilter.isReady())
+            isbnFilter.recordFalsePositive();
+        return registered;
+    }
+
+    /**
+     * The caches and the search index only learn about the new books once the
+     * transaction committed: a lookup made before that still misses the rows and
+     * would otherwise be cached as not found after the invalidation.
+     */
+    @Override
+    @Transactional
+    public List<Book> saveAll(List<Book> books) {
+        Set<String> isbns = books.stream().map(Book::getIsbn).collect(Collectors.toSet());
+        Set<String> registeredIsbns = new HashSet<>(repository.findRegisteredIsbns(isbns));
+        List<Book> newBooks = books.stream()
+                .filter(book -> registeredIsbns.add(book.getIsbn()))
+                .collect(Collectors.toList());
+        List<Book> savedBooks = repository.insertAll(newBooks);
+        afterCommit(() -> savedBooks.forEach(savedBook -> {
+            isbnFilter.add(savedBook.getIsbn());
+            isbnCache.invalidate(savedBook.getIsbn());
+            searchIndex.index(savedBook);
+        }));
+        return savedBooks;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     @Override
     public Optional<Book> findById(long id) {
-        return repository.findById(id);
+        Optional<Book> book = loads.findById(id, () -> repository.findById(id));
+        book.ifPresent(this::rememberVersion);
+        return book;
+    }
+
+    @Override
+    public Optional<BookVersion> findCachedVersion(long id) {
+        return versionCache.get(id);
+    }
+
+    private void rememberVersion(Book book) {
+        versionCache.put(book.getId(), new BookVersion(book.getVersion(), book.getLastModified()));
     }
 
     @Override
@@ -39,27 +146,97 @@ public class BookServiceImpl implements BookService {
         if (book == null || book.getId() == null)
             throw new IllegalArgumentException("Book cannot be null.");
         repository.delete(book);
+        isbnCache.invalidate(book);
+        searchIndex.remove(book.getId());
+        versionCache.invalidate(book.getId());
     }
 
     @Override
     public Book updateBook(Book book) {
         if (book == null || book.getId() == null)
             throw new IllegalArgumentException("Book cannot be null.");
-       return repository.save(book);
+        Book updatedBook = repository.save(book);
+        isbnFilter.add(updatedBook.getIsbn());
+        isbnCache.invalidate(updatedBook);
+        searchIndex.index(updatedBook);
+        rememberVersion(updatedBook);
+        return updatedBook;
     }
 
+    /**
+     * Writes only the given fields, in one statement, and brings the caches and the
+     * search index in line without reading the book back. The new version is only
+     * known when a single one was expected.
+     */
     @Override
-    public Page<Book> findByFilters(Book book, Pageable pageRequest) {
-        Example<Book> exampleBook = Example.of(book,
-                ExampleMatcher.matching()
-                        .withIgnoreCase()
-                        .withIgnoreNullValues()
-                        .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(exampleBook, pageRequest);
+    public Optional<BookVersion> patchBook(long id, String title, String author, Collection<Long> expectedVersions) {
+        Instant lastModified = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        if (repository.updateFields(id, title, author, expectedVersions, lastModified) == 0)
+            return Optional.empty();
+        isbnCache.invalidateBook(id);
+        searchIndex.update(id, title, author);
+        Long version = expectedVersions != null && expectedVersions.size() == 1
+                ? expectedVersions.iterator().next() + 1
+                : null;
+        BookVersion patched = new BookVersion(version, lastModified);
+        if (version != null)
+            versionCache.put(id, patched);
+        else
+            versionCache.invalidate(id);
+        return Optional.of(patched);
+    }
+
+    private boolean isIndexedSearch(Book book, Pageable pageRequest) {
+        return searchIndex.isReady()
+                && (book.getTitle() != null || book.getAuthor() != null)
+                && book.getId() == null && book.getIsbn() == null
+                && pageRequest.isPaged() && pageRequest.getSort().isUnsorted();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<BookView> findViewsByFilters(Book book, Pageable pageRequest) {
+        if (!isIndexedSearch(book, pageRequest))
+            return repository.findViewsByFilters(book, pageRequest);
+        BookSearchIndex.SearchResult result = searchIndex.search(
+                book.getTitle(), book.getAuthor(), pageRequest.getOffset(), pageRequest.getPageSize());
+        List<BookView> content = inRankedOrder(result.getIds(), repository.findViewsByIdIn(result.getIds()), BookView::getId);
+        return new PageImpl<>(content, pageRequest, result.getTotal());
+    }
+
+    /**
+     * The search index counts its matches in memory anyway, so only the database
+     * path changes: it reads one row past the page instead of counting.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<BookView> findViewSliceByFilters(Book book, Pageable pageRequest) {
+        if (!isIndexedSearch(book, pageRequest))
+            return repository.findViewSliceByFilters(book, pageRequest);
+        Page<BookView> page = findViewsByFilters(book, pageRequest);
+        return new SliceImpl<>(page.getContent(), pageRequest, page.hasNext());
+    }
+
+    private static <T> List<T> inRankedOrder(List<Long> ids, Collection<T> rows, Function<T, Long> idOf) {
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public KeysetSlice<Book> findByFiltersAfter(Book book, KeysetCursor cursor, int size) {
+        return repository.findByFiltersAfter(book, cursor, size);
     }
 
     @Override
     public Optional<Book> findByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        return loads.findByIsbn(isbn, () -> isbnCache.get(isbn, repository::findByIsbn));
+    }
+
+    @Override
+    public void forEachBook(Consumer<? super Book> action) {
+        repository.forEachBook(action);
     }
 }
@@ -1,30 +1,65 @@
 package com.project.libraryapi.service.impl;
 
 import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.LoanReturnDTO;
+import com.project.libraryapi.api.dto.LoanReturnResultDTO;
 import com.project.libraryapi.exception.BusinessException;
+import com.project.libraryapi.model.entity.Book;
 import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanState;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import com.project.libraryapi.model.repository.LoanRepository;
+import com.project.libraryapi.model.repository.OverdueLoanRepository;
 import com.project.libraryapi.service.LoanService;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import com.project.libraryapi.service.registry.ActiveLoanRegistry;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "library.service", histogram = true)
 public class LoanServiceImpl implements LoanService {
 
+    private static final int RETURN_CHUNK_SIZE = 500;
+
     LoanRepository repository;
+    OverdueLoanRepository overdueLoanRepository;
+    ActiveLoanRegistry activeLoans;
+    BusinessMetrics metrics;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, OverdueLoanRepository overdueLoanRepository,
+                           ActiveLoanRegistry activeLoans, BusinessMetrics metrics) {
         this.repository = repository;
+        this.overdueLoanRepository = overdueLoanRepository;
+        this.activeLoans = activeLoans;
+        this.metrics = metrics;
     }
 
+    /**
+     * The active-loan registry only rejects the common case early; concurrent
+     * requests for the same book are decided by the unique active-loan constraint.
+     */
     @Override
     public Loan save(Loan loan) {
-        if (repository.existsByBookAndNotReturned(loan.getBook()))
-            throw new BusinessException("Book already borrowed.");
-        return repository.save(loan);
+        if (isBorrowed(loan.getBook()))
+            throw alreadyBorrowed();
+        Loan savedLoan = saveActiveLoan(loan);
+        activeLoans.add(loan.getBook().getId());
+        return savedLoan;
     }
 
     @Override
@@ -32,13 +67,169 @@ public class LoanServiceImpl implements LoanService {
         return repository.findById(id);
     }
 
+    /**
+     * Changes the status with one update statement instead of loading and merging
+     * the loan, then reads it back once. The update only matches a loan whose
+     * status differs, so the active-loan registry changes only when it flipped: a
+     * loan returned twice must not free a book that was lent again since.
+     *
+     * @return the loan, or empty when there is none with the given id
+     */
+    @Override
+    @Transactional
+    public Optional<Loan> updateReturned(long id, boolean returned) {
+        int updated;
+        try {
+            updated = returned ? repository.returnById(id) : repository.reopenById(id);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyBorrowed();
+        }
+        Optional<Loan> loan = repository.findById(id);
+        if (updated > 0)
+            loan.map(found -> found.getBook().getId()).ifPresent(returned ? activeLoans::remove : activeLoans::add);
+        return loan;
+    }
+
+    /**
+     * Reads the state of the requested loans, locking them, and closes the open
+     * ones with one bulk update per chunk of ids, all in the same transaction. The
+     * locks make a concurrent batch wait and then report these loans as already
+     * returned, so every update closes exactly the loans listed. The books leave
+     * the active-loan registry as soon as the updates ran; should the transaction
+     * roll back, a new loan for one of them is still refused by the unique
+     * active-loan constraint until the reconciliation restores the entry.
+     */
     @Override
-    public Loan update(Loan loan) {
-        return repository.save(loan);
+    @Transactional
+    public LoanReturnResultDTO returnAll(LoanReturnDTO loanReturnDTO) {
+        Map<Long, LoanState> open = new LinkedHashMap<>();
+        List<Long> unknownIds = new ArrayList<>();
+        List<Long> alreadyReturnedIds = new ArrayList<>();
+        List<String> notBorrowedIsbns = new ArrayList<>();
+
+        for (List<Long> ids : chunks(distinct(loanReturnDTO.getIds()))) {
+            Map<Long, LoanState> states = repository.findStatesByIdIn(ids)
+                    .stream()
+                    .collect(Collectors.toMap(LoanState::getId, Function.identity()));
+            ids.forEach(id -> {
+                LoanState state = states.get(id);
+                if (state == null)
+                    unknownIds.add(id);
+                else if (Boolean.TRUE.equals(state.getReturned()))
+                    alreadyReturnedIds.add(id);
+                else
+                    open.put(id, state);
+            });
+        }
+        for (List<String> isbns : chunks(distinct(loanReturnDTO.getIsbns()))) {
+            Map<String, LoanState> states = repository.findOpenStatesByBookIsbnIn(isbns)
+                    .stream()
+                    .collect(Collectors.toMap(LoanState::getIsbn, Function.identity(), (first, second) -> first));
+            isbns.forEach(isbn -> {
+                LoanState state = states.get(isbn);
+                if (state == null)
+                    notBorrowedIsbns.add(isbn);
+                else
+                    open.putIfAbsent(state.getId(), state);
+            });
+        }
+
+        List<Long> returnedIds = new ArrayList<>(open.keySet());
+        chunks(returnedIds).forEach(repository::markReturned);
+        open.values().forEach(state -> activeLoans.remove(state.getBookId()));
+
+        return LoanReturnResultDTO.builder()
+                .returned(returnedIds.size())
+                .returnedIds(returnedIds)
+                .unknownIds(unknownIds)
+                .alreadyReturnedIds(alreadyReturnedIds)
+                .notBorrowedIsbns(notBorrowedIsbns)
+                .build();
     }
 
+    /**
+     * A single filter goes through its own indexed query; only the combination needs
+     * the union query.
+     */
     @Override
-    public Page<Loan> find(LoanInputDTO loanInputDTO, Pageable pageRequest) {
-        return repository.findByBookIsbnOrCustomer(loanInputDTO.getIsbn(), loanInputDTO.getCustomer(), pageRequest);
+    @Transactional(readOnly = true)
+    public Page<LoanView> findViews(LoanInputDTO loanInputDTO, Pageable pageRequest) {
+        String isbn = loanInputDTO.getIsbn();
+        String customer = loanInputDTO.getCustomer();
+        if (isbn == null && customer == null)
+            return Page.empty(pageRequest);
+        if (customer == null)
+            return repository.findViewsByBookIsbn(isbn, pageRequest);
+        if (isbn == null)
+            return repository.findViewsByCustomer(customer, pageRequest);
+        return repository.findViewsByBookIsbnOrCustomer(isbn, customer, pageRequest);
+    }
+
+    /**
+     * Same routing as {@link #findViews}, reading one row past the page to tell
+     * whether there is a next one instead of counting the matches.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<LoanView> findViewSlice(LoanInputDTO loanInputDTO, Pageable pageRequest) {
+        String isbn = loanInputDTO.getIsbn();
+        String customer = loanInputDTO.getCustomer();
+        if (isbn == null && customer == null)
+            return new SliceImpl<>(Collections.emptyList(), pageRequest, false);
+        if (customer == null)
+            return repository.findViewSliceByBookIsbn(isbn, pageRequest);
+        if (isbn == null)
+            return repository.findViewSliceByCustomer(customer, pageRequest);
+        return repository.findViewSliceByBookIsbnOrCustomer(isbn, customer, pageRequest);
+    }
+
+    @Override
+    public KeysetSlice<Loan> findAfter(LoanInputDTO loanInputDTO, KeysetCursor cursor, int size) {
+        return repository.findByBookIsbnOrCustomerAfter(loanInputDTO.getIsbn(), loanInputDTO.getCustomer(), cursor, size);
+    }
+
+    @Override
+    public boolean isAvailable(Book book) {
+        return !isBorrowed(book);
+    }
+
+    /**
+     * Served from the set the overdue-loan job keeps, always oldest loan first.
+     */
+    @Override
+    public Page<OverdueLoanView> findOverdue(Pageable pageRequest) {
+        return overdueLoanRepository.findViews(PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()));
+    }
+
+    private boolean isBorrowed(Book book) {
+        if (activeLoans.isReady())
+            return activeLoans.contains(book.getId());
+        return repository.existsByBookAndNotReturned(book);
+    }
+
+    private Loan saveActiveLoan(Loan loan) {
+        try {
+            return repository.save(loan);
+        } catch (DataIntegrityViolationException e) {
+            throw alreadyBorrowed();
+        }
+    }
+
+    private static <T> List<T> distinct(List<T> values) {
+        if (values == null)
+            return Collections.emptyList();
+        return values.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += RETURN_CHUNK_SIZE)
+            chunks.add(values.subList(from, Math.min(from + RETURN_CHUNK_SIZE, values.size())));
+        return chunks;
+    }
+
+    private BusinessException alreadyBorrowed() {
+        metrics.bookAlreadyBorrowed();
+        return new BusinessException("Book already borrowed.");
     }
 }
@@ -0,0 +1,155 @@
+package com.project.libraryapi.service.impl;
+
+import com.project.libraryapi.exception.BusinessException;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.repository.ReactiveBookRepository;
+import com.project.libraryapi.model.row.BookRow;
+import com.project.libraryapi.service.ReactiveBookService;
+import com.project.libraryapi.service.cache.BookVersionCache;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import com.project.libraryapi.service.cache.IsbnBloomFilter;
+import com.project.libraryapi.service.cache.IsbnCache;
+import com.project.libraryapi.service.search.BookSearchIndex;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking mirror of {@link BookServiceImpl}. It applies the same ISBN rules
+ * and keeps the shared in-memory Bloom filter, cache and search index in step
+ * with its writes, so either stack can serve any request.
+ */
+@Service
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+    private final ReactiveBookRepository repository;
+    private final BookSearchIndex searchIndex;
+    private final IsbnCache isbnCache;
+    private final IsbnBloomFilter isbnFilter;
+    private final BookVersionCache versionCache;
+    private final BusinessMetrics metrics;
+
+    public ReactiveBookServiceImpl(ReactiveBookRepository repository, BookSearchIndex searchIndex, IsbnCache isbnCache,
+                                   IsbnBloomFilter isbnFilter, BookVersionCache versionCache, BusinessMetrics metrics) {
+        this.repository = repository;
+        this.searchIndex = searchIndex;
+        this.isbnCache = isbnCache;
+        this.isbnFilter = isbnFilter;
+        this.versionCache = versionCache;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<BookRow> save(BookRow book) {
+        return Mono.defer(() -> isbnFilter.mightContain(book.getIsbn()) ? isRegistered(book.getIsbn()) : Mono.just(false))
+                .flatMap(registered -> registered
+                        ? Mono.<BookRow>error(duplicateIsbn())
+                        : repository.save(book))
+                .onErrorMap(DataIntegrityViolationException.class, e -> duplicateIsbn())
+                .doOnNext(savedBook -> {
+                    isbnFilter.add(savedBook.getIsbn());
+                    isbnCache.invalidate(savedBook.getIsbn());
+                    searchIndex.index(toBook(savedBook));
+                    rememberVersion(savedBook);
+                });
+    }
+
+    private BusinessException duplicateIsbn() {
+        metrics.duplicateIsbn();
+        return new BusinessException("ISBN already registered.");
+    }
+
+    private Mono<Boolean> isRegistered(String isbn) {
+        return repository.existsByIsbn(isbn)
+                .doOnNext(registered -> {
+                    if (!registered && isbnFilter.isReady())
+                        isbnFilter.recordFalsePositive();
+                });
+    }
+
+    @Override
+    public Mono<BookRow> findById(long id) {
+        return repository.findById(id).doOnNext(this::rememberVersion);
+    }
+
+    @Override
+    public Optional<BookVersion> findCachedVersion(long id) {
+        return versionCache.get(id);
+    }
+
+    private void rememberVersion(BookRow book) {
+        versionCache.put(book.getId(), new BookVersion(book.getVersion(), book.getLastModified()));
+    }
+
+    @Override
+    public Mono<Void> delete(BookRow book) {
+        if (book == null || book.getId() == null)
+            return Mono.error(new IllegalArgumentException("Book cannot be null."));
+        return repository.delete(book)
+                .doOnSuccess(done -> {
+                    isbnCache.invalidate(toBook(book));
+                    searchIndex.remove(book.getId());
+                    versionCache.invalidate(book.getId());
+                });
+    }
+
+    @Override
+    public Mono<BookRow> updateBook(BookRow book) {
+        if (book == null || book.getId() == null)
+            return Mono.error(new IllegalArgumentException("Book cannot be null."));
+        return repository.save(book)
+                .doOnNext(updatedBook -> {
+                    isbnFilter.add(updatedBook.getIsbn());
+                    isbnCache.invalidate(toBook(updatedBook));
+                    searchIndex.index(toBook(updatedBook));
+                    rememberVersion(updatedBook);
+                });
+    }
+
+    @Override
+    public Mono<Page<BookView>> findViewsByFilters(BookRow book, Pageable pageRequest) {
+        if (!isIndexedSearch(book, pageRequest))
+            return repository.findViewsByFilters(book, pageRequest);
+        BookSearchIndex.SearchResult result = searchIndex.search(
+                book.getTitle(), book.getAuthor(), pageRequest.getOffset(), pageRequest.getPageSize());
+        return repository.findAllById(result.getIds())
+                .collectMap(BookRow::getId)
+                .map(byId -> new PageImpl<>(inRankedOrder(result.getIds(), byId), pageRequest, result.getTotal()));
+    }
+
+    private boolean isIndexedSearch(BookRow book, Pageable pageRequest) {
+        return searchIndex.isReady()
+                && (book.getTitle() != null || book.getAuthor() != null)
+                && book.getId() == null && book.getIsbn() == null
+                && pageRequest.isPaged() && pageRequest.getSort().isUnsorted();
+    }
+
+    private static List<BookView> inRankedOrder(List<Long> ids, Map<Long, BookRow> byId) {
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(row -> new BookView(row.getId(), row.getTitle(), row.getAuthor(), row.getIsbn()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Mono<BookRow> findByIsbn(String isbn) {
+        return repository.findByIsbn(isbn);
+    }
+
+    private static Book toBook(BookRow row) {
+        return Book.builder().id(row.getId()).title(row.getTitle()).author(row.getAuthor()).isbn(row.getIsbn())
+                .version(row.getVersion()).lastModified(row.getLastModified()).build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.project.libraryapi.service.impl;
+
+import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.exception.BusinessException;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import com.project.libraryapi.model.repository.ReactiveLoanRepository;
+import com.project.libraryapi.model.row.BookRow;
+import com.project.libraryapi.model.row.LoanRow;
+import com.project.libraryapi.service.ReactiveLoanService;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import com.project.libraryapi.service.registry.ActiveLoanRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking mirror of {@link LoanServiceImpl}: the shared active-loan registry
+ * rejects the common case early and the unique active-loan constraint decides
+ * concurrent requests, whichever stack they come from.
+ */
+@Service
+public class ReactiveLoanServiceImpl implements ReactiveLoanService {
+
+    private final ReactiveLoanRepository repository;
+    private final ActiveLoanRegistry activeLoans;
+    private final BusinessMetrics metrics;
+
+    public ReactiveLoanServiceImpl(ReactiveLoanRepository repository, ActiveLoanRegistry activeLoans, BusinessMetrics metrics) {
+        this.repository = repository;
+        this.activeLoans = activeLoans;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<LoanRow> save(LoanRow loan) {
+        return isBorrowed(loan.getBookId())
+                .flatMap(borrowed -> borrowed
+                        ? Mono.<LoanRow>error(alreadyBorrowed())
+                        : saveActiveLoan(loan))
+                .doOnNext(savedLoan -> activeLoans.add(savedLoan.getBookId()));
+    }
+
+    @Override
+    public Mono<LoanRow> findById(long id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * The registry changes only when the guarded update flipped the status, so a
+     * loan returned twice does not free a book that was lent again since.
+     */
+    @Override
+    public Mono<LoanRow> updateReturned(long id, boolean returned) {
+        Mono<Integer> update = returned ? repository.returnById(id) : repository.reopenById(id);
+        return update
+                .onErrorMap(DataIntegrityViolationException.class, e -> alreadyBorrowed())
+                .flatMap(updated -> repository.findById(id)
+                        .doOnNext(loan -> {
+                            if (updated == 0)
+                                return;
+                            if (returned)
+                                activeLoans.remove(loan.getBookId());
+                            else
+                                activeLoans.add(loan.getBookId());
+                        }));
+    }
+
+    @Override
+    public Mono<Page<LoanView>> findViews(LoanInputDTO loanInputDTO, Pageable pageRequest) {
+        if (loanInputDTO.getIsbn() == null && loanInputDTO.getCustomer() == null)
+            return Mono.just(Page.empty(pageRequest));
+        return repository.findViewsByBookIsbnOrCustomer(loanInputDTO.getIsbn(), loanInputDTO.getCustomer(), pageRequest);
+    }
+
+    @Override
+    public Mono<Boolean> isAvailable(BookRow book) {
+        return isBorrowed(book.getId()).map(borrowed -> !borrowed);
+    }
+
+    @Override
+    public Mono<Page<OverdueLoanView>> findOverdue(Pageable pageRequest) {
+        return repository.findOverdueViews(pageRequest);
+    }
+
+    private Mono<Boolean> isBorrowed(Long bookId) {
+        return Mono.defer(() -> activeLoans.isReady()
+                ? Mono.just(activeLoans.contains(bookId))
+                : repository.existsByActiveBookId(bookId));
+    }
+
+    private Mono<LoanRow> saveActiveLoan(LoanRow loan) {
+        return repository.save(loan)
+                .onErrorMap(DataIntegrityViolationException.class, e -> alreadyBorrowed());
+    }
+
+    private BusinessException alreadyBorrowed() {
+        metrics.bookAlreadyBorrowed();
+        return new BusinessException("Book already borrowed.");
+    }
+}
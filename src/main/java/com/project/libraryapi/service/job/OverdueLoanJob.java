@@ -0,0 +1,135 @@
+package com.project.libraryapi.service.job;
+
+import com.project.libraryapi.model.entity.JobCheckpoint;
+import com.project.libraryapi.model.repository.JobCheckpointRepository;
+import com.project.libraryapi.model.repository.LoanRepository;
+import com.project.libraryapi.model.repository.OverdueLoanRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the overdue set, the open loans taken more than a loan period ago, that
+ * {@code GET /api/loans/overdue} serves.
+ * <p>
+ * A run starts by reading the lowest and highest overdue ids from the
+ * {@code (returned, loan_date)} index, so the returned loans before the first
+ * overdue one are never visited. It then walks the ids between them in fixed
+ * ranges of the chunk size. Each chunk replaces the entries of its range with one
+ * delete and one insert-select, read through the primary key or the same index,
+ * and advances the checkpoint in the same transaction; no loan is loaded into
+ * memory.
+ * <p>
+ * A run cut short by a restart resumes from the checkpoint, and the lock on its
+ * row keeps a second instance from processing the same chunk.
+ */
+@Component
+public class OverdueLoanJob implements MeterBinder {
+
+    static final String NAME = "overdue-loans";
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanJob.class);
+
+    private final LoanRepository loanRepository;
+    private final OverdueLoanRepository overdueLoanRepository;
+    private final JobCheckpointRepository checkpointRepository;
+    private final TransactionTemplate transactions;
+    private final Period loanPeriod;
+    private final int chunkSize;
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong overdueLoans = new AtomicLong();
+    private final AtomicLong lastRunMillis = new AtomicLong();
+
+    public OverdueLoanJob(LoanRepository loanRepository, OverdueLoanRepository overdueLoanRepository,
+                          JobCheckpointRepository checkpointRepository, PlatformTransactionManager transactionManager,
+                          @Value("${library.overdue-loans.loan-period:P14D}") Period loanPeriod,
+                          @Value("${library.overdue-loans.chunk-size:1000}") int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Invalid overdue-loan chunk size.");
+        this.loanRepository = loanRepository;
+        this.overdueLoanRepository = overdueLoanRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.loanPeriod = loanPeriod;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Resumes the run in progress, or starts a new one, and processes it to the end.
+     */
+    @Scheduled(initialDelayString = "${library.overdue-loans.initial-delay:PT1M}",
+            fixedDelayString = "${library.overdue-loans.interval:PT1H}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        boolean more = processChunk(true);
+        while (more)
+            more = processChunk(false);
+        lastRunMillis.set(System.currentTimeMillis() - start);
+        log.info("Overdue loans updated in {} ms", lastRunMillis.get());
+    }
+
+    /**
+     * @param mayStart whether a new run may be started when none is in progress
+     * @return whether the run in progress has chunks left
+     */
+    boolean processChunk(boolean mayStart) {
+        return Boolean.TRUE.equals(transactions.execute(status -> {
+            JobCheckpoint checkpoint = checkpointRepository.findForUpdate(NAME)
+                    .orElseThrow(() -> new IllegalStateException("Missing checkpoint of job " + NAME));
+            if (!checkpoint.isRunning()) {
+                if (!mayStart)
+                    return false;
+                LocalDate cutoff = LocalDate.now().minus(loanPeriod);
+                long beforeFirst = loanRepository.findMinOverdueId(cutoff).map(id -> id - 1).orElse(0L);
+                checkpoint.start(cutoff, beforeFirst, loanRepository.findMaxOverdueId(cutoff).orElse(beforeFirst));
+                overdueLoanRepository.deleteByLoanIdRange(Long.MIN_VALUE, beforeFirst);
+                runs.incrementAndGet();
+            }
+
+            long afterId = checkpoint.getLastId();
+            boolean last = checkpoint.getEndId() - afterId <= chunkSize;
+            long upToId = last ? Long.MAX_VALUE : afterId + chunkSize;
+
+            overdueLoanRepository.deleteByLoanIdRange(afterId, upToId);
+            overdueLoans.addAndGet(overdueLoanRepository.insertOverdueInRange(checkpoint.getCutoff(), afterId, upToId));
+            chunks.incrementAndGet();
+
+            if (last)
+                checkpoint.complete();
+            else
+                checkpoint.setLastId(upToId);
+            return !last;
+        }));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.overdue.job.runs", runs, AtomicLong::get)
+                .description("Overdue-loan runs started by this instance")
+                .register(registry);
+        FunctionCounter.builder("library.overdue.job.chunks", chunks, AtomicLong::get)
+                .description("Overdue-loan chunks processed by this instance")
+                .register(registry);
+        FunctionCounter.builder("library.overdue.job.loans", overdueLoans, AtomicLong::get)
+                .description("Overdue loans written to the overdue set")
+                .register(registry);
+        TimeGauge.builder("library.overdue.job.last.duration", lastRunMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Duration of the last run on this instance")
+                .register(registry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.project.libraryapi.service.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts of the requests the library turned down, whichever stack served them.
+ * Rejections raised by the database constraints count the same as the ones the
+ * in-memory checks catch first.
+ */
+@Component
+public class BusinessMetrics implements MeterBinder {
+
+    private final AtomicLong duplicateIsbns = new AtomicLong();
+    private final AtomicLong booksAlreadyBorrowed = new AtomicLong();
+    private final AtomicLong notFounds = new AtomicLong();
+
+    public void duplicateIsbn() {
+        duplicateIsbns.incrementAndGet();
+    }
+
+    public void bookAlreadyBorrowed() {
+        booksAlreadyBorrowed.incrementAndGet();
+    }
+
+    public void notFound() {
+        notFounds.incrementAndGet();
+    }
+
+    public long duplicateIsbns() {
+        return duplicateIsbns.get();
+    }
+
+    public long booksAlreadyBorrowed() {
+        return booksAlreadyBorrowed.get();
+    }
+
+    public long notFounds() {
+        return notFounds.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("library.business.rejections", duplicateIsbns, AtomicLong::get)
+                .tag("reason", "duplicate_isbn")
+                .description("Requests rejected by a business rule")
+                .register(registry);
+        FunctionCounter.builder("library.business.rejections", booksAlreadyBorrowed, AtomicLong::get)
+                .tag("reason", "book_already_borrowed")
+                .register(registry);
+        FunctionCounter.builder("library.not.found", notFounds, AtomicLong::get)
+                .description("Requests answered with 404 for an unknown book or loan")
+                .register(registry);
+    }
+}
@@ -0,0 +1,179 @@
+package com.project.libraryapi.service.registry;
+
+import com.project.libraryapi.model.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * Ids of the books that currently have an open loan, kept as a bitset split in
+ * pages of 64K ids that are allocated on first use. Membership checks and
+ * updates are a single CAS on one word, so the loan pre-check and the
+ * availability endpoint never touch the database once the registry is loaded.
+ * A periodic reconciliation repairs any drift from writes made outside the
+ * service, skipping ids that changed while it was reading the table.
+ */
+@Component
+public class ActiveLoanRegistry implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveLoanRegistry.class);
+
+    private static final int PAGE_SHIFT = 16;
+    private static final int WORDS_PER_PAGE = (1 << PAGE_SHIFT) / 64;
+
+    private final LoanRepository repository;
+    private final boolean enabled;
+
+    private final Map<Long, AtomicLongArray> pages = new ConcurrentHashMap<>();
+    private volatile Set<Long> touchedDuringReconcile;
+    private volatile boolean ready;
+
+    public ActiveLoanRegistry(LoanRepository repository,
+                              @Value("${library.active-loans.registry.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled)
+            rebuild();
+    }
+
+    public void rebuild() {
+        ready = false;
+        pages.clear();
+        long start = System.currentTimeMillis();
+        repository.findActiveBookIds().forEach(this::set);
+        ready = true;
+        log.info("Active loan registry built with {} books in {} ms", size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Compares the registry with the table and fixes the differences.
+     *
+     * @return how many book ids were out of sync
+     */
+    @Scheduled(initialDelayString = "${library.active-loans.registry.reconcile-interval:PT5M}",
+            fixedDelayString = "${library.active-loans.registry.reconcile-interval:PT5M}")
+    public int reconcile() {
+        if (!ready)
+            return 0;
+        Set<Long> touched = ConcurrentHashMap.newKeySet();
+        touchedDuringReconcile = touched;
+        try {
+            Set<Long> active = repository.findActiveBookIds();
+            int[] drift = new int[1];
+            active.forEach(id -> {
+                if (!touched.contains(id) && set(id))
+                    drift[0]++;
+            });
+            forEach(id -> {
+                if (!active.contains(id) && !touched.contains(id) && clear(id))
+                    drift[0]++;
+            });
+            if (drift[0] > 0)
+                log.warn("Active loan registry reconciled {} book ids with the database", drift[0]);
+            return drift[0];
+        } finally {
+            touchedDuringReconcile = null;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean contains(Long bookId) {
+        if (bookId == null || bookId < 0)
+            return false;
+        AtomicLongArray page = pages.get(bookId >>> PAGE_SHIFT);
+        return page != null && (page.get(word(bookId)) & mask(bookId)) != 0;
+    }
+
+    public void add(Long bookId) {
+        if (bookId == null || bookId < 0)
+            return;
+        set(bookId);
+        touched(bookId);
+    }
+
+    public void remove(Long bookId) {
+        if (bookId == null || bookId < 0)
+            return;
+        clear(bookId);
+        touched(bookId);
+    }
+
+    public long size() {
+        long size = 0;
+        for (AtomicLongArray page : pages.values())
+            for (int i = 0; i < page.length(); i++)
+                size += Long.bitCount(page.get(i));
+        return size;
+    }
+
+    private void forEach(LongConsumer action) {
+        pages.forEach((pageIndex, page) -> {
+            for (int i = 0; i < page.length(); i++) {
+                long bits = page.get(i);
+                while (bits != 0) {
+                    int bit = Long.numberOfTrailingZeros(bits);
+                    action.accept((pageIndex << PAGE_SHIFT) | ((long) i << 6) | bit);
+                    bits &= bits - 1;
+                }
+            }
+        });
+    }
+
+    private boolean set(long bookId) {
+        AtomicLongArray page = pages.computeIfAbsent(bookId >>> PAGE_SHIFT, key -> new AtomicLongArray(WORDS_PER_PAGE));
+        int word = word(bookId);
+        long mask = mask(bookId);
+        long current;
+        do {
+            current = page.get(word);
+            if ((current & mask) != 0)
+                return false;
+        } while (!page.compareAndSet(word, current, current | mask));
+        return true;
+    }
+
+    private boolean clear(long bookId) {
+        AtomicLongArray page = pages.get(bookId >>> PAGE_SHIFT);
+        if (page == null)
+            return false;
+        int word = word(bookId);
+        long mask = mask(bookId);
+        long current;
+        do {
+            current = page.get(word);
+            if ((current & mask) == 0)
+                return false;
+        } while (!page.compareAndSet(word, current, current & ~mask));
+        return true;
+    }
+
+    private void touched(long bookId) {
+        Set<Long> touched = touchedDuringReconcile;
+        if (touched != null)
+            touched.add(bookId);
+    }
+
+    private static int word(long bookId) {
+        return (int) ((bookId >>> 6) & (WORDS_PER_PAGE - 1));
+    }
+
+    private static long mask(long bookId) {
+        return 1L << bookId;
+    }
+}
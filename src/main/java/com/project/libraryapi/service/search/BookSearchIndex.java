@@ -0,0 +1,265 @@
+package com.project.libraryapi.service.search;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.repository.BookRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index over book titles and authors. Values are case-folded
+ * and split into trigrams, so a substring query only verifies the books holding
+ * every trigram of the query instead of scanning the table. Queries shorter than
+ * a trigram are checked against the folded values kept in memory.
+ */
+@Component
+public class BookSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    private static final int GRAM_SIZE = 3;
+    private static final double TITLE_WEIGHT = 2.0;
+    private static final double AUTHOR_WEIGHT = 1.0;
+
+    private final BookRepository repository;
+    private final boolean enabled;
+
+    private final Map<Long, IndexedBook> books = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> titleGrams = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> authorGrams = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public BookSearchIndex(BookRepository repository, @Value("${library.search.index.enabled:true}") boolean enabled) {
+        this.repository = repository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled)
+            rebuild();
+    }
+
+    public void rebuild() {
+        ready = false;
+        books.clear();
+        titleGrams.clear();
+        authorGrams.clear();
+        long start = System.currentTimeMillis();
+        repository.forEachBook(this::index);
+        ready = true;
+        log.info("Book search index built with {} books in {} ms", books.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null)
+            return;
+        IndexedBook indexed = new IndexedBook(fold(book.getTitle()), fold(book.getAuthor()));
+        books.compute(book.getId(), (id, previous) -> {
+            if (previous != null) {
+                unlink(titleGrams, grams(previous.getTitle()), id);
+                unlink(authorGrams, grams(previous.getAuthor()), id);
+            }
+            link(titleGrams, grams(indexed.getTitle()), id);
+            link(authorGrams, grams(indexed.getAuthor()), id);
+            return indexed;
+        });
+    }
+
+    /**
+     * Reindexes the given fields of a book already in the index; a null value keeps
+     * the indexed one.
+     */
+    public void update(Long id, String title, String author) {
+        if (id == null)
+            return;
+        books.computeIfPresent(id, (key, previous) -> {
+            IndexedBook indexed = new IndexedBook(title != null ? fold(title) : previous.getTitle(),
+                    author != null ? fold(author) : previous.getAuthor());
+            unlink(titleGrams, grams(previous.getTitle()), key);
+            unlink(authorGrams, grams(previous.getAuthor()), key);
+            link(titleGrams, grams(indexed.getTitle()), key);
+            link(authorGrams, grams(indexed.getAuthor()), key);
+            return indexed;
+        });
+    }
+
+    public void remove(Long id) {
+        if (id == null)
+            return;
+        books.computeIfPresent(id, (key, previous) -> {
+            unlink(titleGrams, grams(previous.getTitle()), key);
+            unlink(authorGrams, grams(previous.getAuthor()), key);
+            return null;
+        });
+    }
+
+    /**
+     * Finds the books whose title and author contain the given values, ignoring
+     * case, like the {@code CONTAINING} example matcher does. Matches are ranked by
+     * relevance and only the requested window of the top {@code offset + limit}
+     * ids is returned, together with the total number of matches.
+     */
+    public SearchResult search(String title, String author, long offset, int limit) {
+        String foldedTitle = fold(title);
+        String foldedAuthor = fold(author);
+
+        Collection<Long> candidates = candidates(foldedTitle, foldedAuthor);
+        int window = (int) Math.min(Integer.MAX_VALUE, offset + limit);
+        PriorityQueue<ScoredId> top = new PriorityQueue<>(Comparator.comparing(ScoredId::getScore)
+                .thenComparing(ScoredId::getId, Comparator.reverseOrder()));
+        long total = 0;
+
+        for (Long id : candidates) {
+            IndexedBook book = books.get(id);
+            if (book == null || !book.matches(foldedTitle, foldedAuthor))
+                continue;
+            total++;
+            top.add(new ScoredId(id, TITLE_WEIGHT * score(book.getTitle(), foldedTitle)
+                    + AUTHOR_WEIGHT * score(book.getAuthor(), foldedAuthor)));
+            if (top.size() > window)
+                top.poll();
+        }
+
+        List<ScoredId> ranked = new ArrayList<>(top);
+        ranked.sort(top.comparator().reversed());
+        List<Long> ids = ranked.stream()
+                .skip(offset)
+                .map(ScoredId::getId)
+                .collect(Collectors.toList());
+        return new SearchResult(ids, total);
+    }
+
+    private Collection<Long> candidates(String title, String author) {
+        Set<Long> titleCandidates = postings(titleGrams, title);
+        Set<Long> authorCandidates = postings(authorGrams, author);
+        if (titleCandidates == null && authorCandidates == null)
+            return books.keySet();
+        if (titleCandidates == null)
+            return authorCandidates;
+        if (authorCandidates == null)
+            return titleCandidates;
+        titleCandidates.retainAll(authorCandidates);
+        return titleCandidates;
+    }
+
+    /**
+     * Ids holding every trigram of the query, or {@code null} when the query is
+     * absent or too short to narrow down the candidates.
+     */
+    private Set<Long> postings(Map<String, Set<Long>> index, String query) {
+        if (query == null || query.length() < GRAM_SIZE)
+            return null;
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> ids = index.get(gram);
+            if (ids == null)
+                return new HashSet<>();
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        Set<Long> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++)
+            result.retainAll(lists.get(i));
+        return result;
+    }
+
+    private static double score(String value, String query) {
+        if (query == null || query.isEmpty() || value == null)
+            return 0;
+        double score;
+        if (value.equals(query))
+            score = 4;
+        else if (value.startsWith(query))
+            score = 3;
+        else if (isWholeWord(value, query))
+            score = 2;
+        else
+            score = 1;
+        return score + 1.0 / (1 + value.length());
+    }
+
+    private static boolean isWholeWord(String value, String query) {
+        for (int i = value.indexOf(query); i >= 0; i = value.indexOf(query, i + 1)) {
+            int end = i + query.length();
+            boolean startsWord = i == 0 || !Character.isLetterOrDigit(value.charAt(i - 1));
+            boolean endsWord = end == value.length() || !Character.isLetterOrDigit(value.charAt(end));
+            if (startsWord && endsWord)
+                return true;
+        }
+        return false;
+    }
+
+    private static Set<String> grams(String value) {
+        if (value == null || value.length() < GRAM_SIZE)
+            return Collections.emptySet();
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= value.length(); i++)
+            grams.add(value.substring(i, i + GRAM_SIZE));
+        return grams;
+    }
+
+    private static void link(Map<String, Set<Long>> index, Set<String> grams, Long id) {
+        grams.forEach(gram -> index.compute(gram, (key, ids) -> {
+            Set<Long> postings = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            postings.add(id);
+            return postings;
+        }));
+    }
+
+    private static void unlink(Map<String, Set<Long>> index, Set<String> grams, Long id) {
+        grams.forEach(gram -> index.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        }));
+    }
+
+    private static String fold(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class IndexedBook {
+        private final String title;
+        private final String author;
+
+        boolean matches(String title, String author) {
+            return contains(this.title, title) && contains(this.author, author);
+        }
+
+        private static boolean contains(String value, String query) {
+            return query == null || (value != null && value.contains(query));
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ScoredId {
+        private final Long id;
+        private final double score;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SearchResult {
+        private final List<Long> ids;
+        private final long total;
+    }
+}
@@ -0,0 +1,21 @@
+CREATE SEQUENCE book_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE book (
+    id BIGINT NOT NULL,
+    title VARCHAR(255),
+    author VARCHAR(255),
+    isbn VARCHAR(255),
+    CONSTRAINT pk_book PRIMARY KEY (id)
+);
+
+CREATE TABLE loan (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    customer VARCHAR(100),
+    id_book BIGINT,
+    loan_date DATE,
+    returned BOOLEAN,
+    active_book_id BIGINT,
+    CONSTRAINT pk_loan PRIMARY KEY (id),
+    CONSTRAINT fk_loan_book FOREIGN KEY (id_book) REFERENCES book (id),
+    CONSTRAINT uk_loan_active_book UNIQUE (active_book_id)
+);
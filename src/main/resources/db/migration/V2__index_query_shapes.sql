@@ -0,0 +1,11 @@
+-- findByIsbn / existsByIsbn / findRegisteredIsbns
+CREATE UNIQUE INDEX ux_book_isbn ON book (isbn);
+
+-- existsByBookAndNotReturned: a two-valued status keeps the predicate sargable
+UPDATE loan SET returned = FALSE WHERE returned IS NULL;
+ALTER TABLE loan ALTER COLUMN returned SET DEFAULT FALSE;
+ALTER TABLE loan ALTER COLUMN returned SET NOT NULL;
+CREATE INDEX ix_loan_book_returned ON loan (id_book, returned);
+
+-- findByBookIsbnOrCustomer
+CREATE INDEX ix_loan_customer ON loan (customer);
@@ -0,0 +1,3 @@
+-- Optimistic-locking version and modification time behind the book ETag and Last-Modified headers.
+ALTER TABLE book ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE book ADD COLUMN last_modified TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
@@ -0,0 +1,22 @@
+-- Overdue-loan job: open loans older than the loan period, found through this index and
+-- refreshed in id-ranged chunks.
+CREATE INDEX ix_loan_returned_loan_date ON loan (returned, loan_date);
+
+CREATE TABLE overdue_loan (
+    loan_id BIGINT NOT NULL,
+    loan_date DATE NOT NULL,
+    CONSTRAINT pk_overdue_loan PRIMARY KEY (loan_id),
+    CONSTRAINT fk_overdue_loan_loan FOREIGN KEY (loan_id) REFERENCES loan (id) ON DELETE CASCADE
+);
+
+CREATE TABLE job_checkpoint (
+    name VARCHAR(100) NOT NULL,
+    cutoff DATE,
+    last_id BIGINT DEFAULT 0 NOT NULL,
+    end_id BIGINT DEFAULT 0 NOT NULL,
+    started_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    CONSTRAINT pk_job_checkpoint PRIMARY KEY (name)
+);
+
+INSERT INTO job_checkpoint (name) VALUES ('overdue-loans');
@@ -0,0 +1,68 @@
+package com.project.libraryapi.api.limit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class AimdLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    AimdLimit limit = new AimdLimit("test", 4, 1, 6, Duration.ofMillis(100), 0.5);
+
+    @Test
+    @DisplayName("Deve recusar requisições acima do limite sem enfileirá-las")
+    public void rejectsOverLimitTest(){
+        for (int i = 0; i < 4; i++)
+            assertThat(limit.tryAcquire()).isTrue();
+
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.getInFlight()).isEqualTo(4);
+        assertThat(limit.getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve aumentar o limite aos poucos enquanto as respostas forem rápidas e o limite estiver em uso")
+    public void additiveIncreaseTest(){
+        for (int i = 0; i < 4; i++)
+            limit.tryAcquire();
+        for (int i = 0; i < 4; i++)
+            limit.release(FAST);
+
+        assertThat(limit.getLimit()).isEqualTo(6);
+        assertThat(limit.getInFlight()).isZero();
+
+        limit.tryAcquire();
+        limit.release(FAST);
+        assertThat(limit.getLimit()).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Deve reduzir o limite multiplicativamente quando as respostas ficarem lentas")
+    public void multiplicativeDecreaseTest(){
+        limit.tryAcquire();
+        limit.release(SLOW);
+        assertThat(limit.getLimit()).isEqualTo(2);
+
+        limit.tryAcquire();
+        limit.release(SLOW);
+        limit.tryAcquire();
+        limit.release(SLOW);
+        assertThat(limit.getLimit()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve recusar limites inválidos")
+    public void invalidLimitsTest(){
+        assertThat(catchThrowable(() -> new AimdLimit("test", 10, 1, 5, Duration.ofMillis(100), 0.5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new AimdLimit("test", 1, 1, 5, Duration.ofMillis(100), 1.0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
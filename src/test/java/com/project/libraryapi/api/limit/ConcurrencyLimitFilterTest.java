@@ -0,0 +1,86 @@
+package com.project.libraryapi.api.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitFilterTest {
+
+    ConcurrencyLimitFilter filter;
+    SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void setUp(){
+        filter = new ConcurrencyLimitFilter(1, 2, Duration.ofSeconds(5), 1, 2, Duration.ofSeconds(5),
+                Duration.ofSeconds(2), new ObjectMapper());
+        registry = new SimpleMeterRegistry();
+        filter.bindTo(registry);
+    }
+
+    @Test
+    @DisplayName("Deve responder 503 com Retry-After quando o bulkhead de empréstimos estiver cheio")
+    public void rejectsLoanWriteOverLimitTest() throws Exception {
+        List<MockHttpServletResponse> nested = new ArrayList<>();
+
+        MockHttpServletResponse first = perform("POST", "/api/loans", () -> {
+            nested.add(perform("POST", "/api/loans", null));
+            nested.add(perform("GET", "/api/books/1", null));
+        });
+
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(nested.get(0).getStatus()).isEqualTo(503);
+        assertThat(nested.get(0).getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(nested.get(0).getContentAsString()).contains("Too many concurrent requests");
+        assertThat(nested.get(1).getStatus()).isEqualTo(200);
+        assertThat(registry.get("library.concurrency.rejections").tag("bulkhead", "loan-writes").functionCounter().count())
+                .isEqualTo(1);
+        assertThat(registry.get("library.concurrency.rejections").tag("bulkhead", "catalog-reads").functionCounter().count())
+                .isZero();
+        assertThat(registry.get("library.concurrency.in.flight").tag("bulkhead", "loan-writes").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    @DisplayName("Não deve limitar requisições fora dos bulkheads")
+    public void unlimitedRoutesTest() throws Exception {
+        List<MockHttpServletResponse> nested = new ArrayList<>();
+
+        perform("GET", "/api/loans", () -> nested.add(perform("POST", "/api/books", null)));
+
+        assertThat(nested.get(0).getStatus()).isEqualTo(200);
+        assertThat(registry.get("library.concurrency.limit").tag("bulkhead", "loan-writes").gauge().value())
+                .isEqualTo(1);
+    }
+
+    private MockHttpServletResponse perform(String method, String uri, Runnable whileHandling) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpServlet servlet = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                if (whileHandling != null)
+                    whileHandling.run();
+            }
+        };
+        try {
+            filter.doFilter(new MockHttpServletRequest(method, uri), response, new MockFilterChain(servlet));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+}
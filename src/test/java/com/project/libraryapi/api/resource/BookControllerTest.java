@@ -1,10 +1,19 @@
 package com.project.libraryapi.api.resource;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.project.libraryapi.api.dto.BookDTO;
 import com.project.libraryapi.exception.BusinessException;
 import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import com.project.libraryapi.service.BookService;
+import com.project.libraryapi.service.LoanService;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,26 +23,36 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = BookController.class)
+@Import(BusinessMetrics.class)
 @AutoConfigureMockMvc
 public class BookControllerTest {
 
@@ -45,6 +64,8 @@ public class BookControllerTest {
     @MockBean
     BookService bookService;
 
+    @MockBean
+    LoanService loanService;
 
     @Test
     @DisplayName("Deve criar um livro com sucesso.")
@@ -124,6 +145,28 @@ public class BookControllerTest {
         mvc.perform(request).andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Deve informar se um livro está disponível para empréstimo")
+    public void getBookAvailabilityTest() throws Exception {
+        Book book = createBook(10L, "Artur", "As Aventuras", "001");
+        BDDMockito.given(bookService.findById(10L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.isAvailable(book)).willReturn(false);
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/10/availability")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(10))
+                .andExpect(jsonPath("available").value(false));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 'Not Found' ao consultar disponibilidade de livro inexistente")
+    public void bookAvailabilityNotFoundTest() throws Exception {
+        BDDMockito.given(bookService.findById(Mockito.anyLong())).willReturn(Optional.empty());
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/10/availability")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Deve deletar um livro por id")
     public void deleteBookTest() throws Exception {
@@ -155,20 +198,80 @@ public class BookControllerTest {
         String json = new ObjectMapper().writeValueAsString(bookDTO);
 
         Book bookToUpdate = createBook(1L, "Artur", "As Aventuras", "001");
+        bookToUpdate.setVersion(1L);
         BDDMockito.given(bookService.findById(id)).willReturn(Optional.of(bookToUpdate));
 
         Book bookUpdated = createBook(1L, "Fulano", "Viajando o mundo", "001");
+        bookUpdated.setVersion(2L);
         BDDMockito.given(bookService.updateBook(bookToUpdate)).willReturn(bookUpdated);
 
-        MockHttpServletRequestBuilder request = createPutRequest(id, json);
+        MockHttpServletRequestBuilder request = createPutRequest(id, json).header(HttpHeaders.IF_MATCH, "\"1\"");
 
         mvc.perform(request)
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
                 .andExpect(jsonPath("id").value(bookUpdated.getId()))
                 .andExpect(jsonPath("author").value(bookUpdated.getAuthor()))
                 .andExpect(jsonPath("title").value(bookUpdated.getTitle()))
                 .andExpect(jsonPath("isbn").value(bookUpdated.getIsbn()));
     }
+    @Test
+    @DisplayName("Deve exigir If-Match para atualizar um livro")
+    public void updateBookWithoutIfMatchTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(BookDTO.builder().author("Fulano").title("Viajando o mundo").build());
+        Book book = createBook(1L, "Artur", "As Aventuras", "001");
+        book.setVersion(1L);
+        BDDMockito.given(bookService.findById(1L)).willReturn(Optional.of(book));
+
+        mvc.perform(createPutRequest(1L, json))
+                .andExpect(status().isPreconditionRequired())
+                .andExpect(jsonPath("errors[0]").value("If-Match header is required."));
+        Mockito.verify(bookService, Mockito.never()).updateBook(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve recusar a atualização de um livro alterado desde a leitura")
+    public void updateStaleBookTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(BookDTO.builder().author("Fulano").title("Viajando o mundo").build());
+        Book book = createBook(1L, "Artur", "As Aventuras", "001");
+        book.setVersion(2L);
+        BDDMockito.given(bookService.findById(1L)).willReturn(Optional.of(book));
+
+        mvc.perform(createPutRequest(1L, json).header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isPreconditionFailed());
+        Mockito.verify(bookService, Mockito.never()).updateBook(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve informar ETag e Last-Modified ao obter um livro")
+    public void getBookValidatorsTest() throws Exception {
+        Book book = createBook(10L, "Artur", "As Aventuras", "001");
+        book.setVersion(3L);
+        book.setLastModified(Instant.parse("2022-10-01T10:15:30Z"));
+        BDDMockito.given(bookService.findById(10L)).willReturn(Optional.of(book));
+
+        mvc.perform(createGetRequest(10L))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Sat, 01 Oct 2022 10:15:30 GMT"));
+
+        mvc.perform(createGetRequest(10L).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @DisplayName("Deve responder 'Not Modified' sem consultar o livro quando a versão em cache for a informada")
+    public void notModifiedFromCachedVersionTest() throws Exception {
+        BDDMockito.given(bookService.findCachedVersion(10L))
+                .willReturn(Optional.of(new BookVersion(3L, Instant.parse("2022-10-01T10:15:30Z"))));
+
+        mvc.perform(createGetRequest(10L).header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        Mockito.verify(bookService, Mockito.never()).findById(Mockito.anyLong());
+    }
+
     @Test
     @DisplayName("Deve retornar 'Not Found' quando não encontrar o livro para atualizar")
     public void updateInexistentBookTest() throws Exception{
@@ -184,14 +287,72 @@ public class BookControllerTest {
         Mockito.verify(bookService, Mockito.never()).updateBook(Mockito.any());
     }
 
+    @Test
+    @DisplayName("Deve atualizar parcialmente um livro sem carregá-lo")
+    public void patchBookTest() throws Exception {
+        Instant lastModified = Instant.parse("2022-10-01T10:15:30Z");
+        BDDMockito.given(bookService.patchBook(1L, "Viajando o mundo", null, List.of(1L)))
+                .willReturn(Optional.of(new BookVersion(2L, lastModified)));
+
+        mvc.perform(createPatchRequest(1L, "{\"title\":\"Viajando o mundo\"}").header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(header().string(HttpHeaders.LAST_MODIFIED, "Sat, 01 Oct 2022 10:15:30 GMT"));
+        Mockito.verify(bookService, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve exigir If-Match para atualizar parcialmente um livro")
+    public void patchBookWithoutIfMatchTest() throws Exception {
+        mvc.perform(createPatchRequest(1L, "{\"title\":\"Viajando o mundo\"}"))
+                .andExpect(status().isPreconditionRequired());
+        Mockito.verify(bookService, Mockito.never()).patchBook(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve recusar atualização parcial de campos não permitidos ou removidos")
+    public void patchBookInvalidFieldsTest() throws Exception {
+        mvc.perform(createPatchRequest(1L, "{\"isbn\":\"002\"}").header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isBadRequest());
+        mvc.perform(createPatchRequest(1L, "{\"author\":null}").header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(bookService, Mockito.never()).patchBook(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve distinguir livro alterado de livro inexistente quando a atualização parcial não afeta linhas")
+    public void patchBookNotUpdatedTest() throws Exception {
+        BDDMockito.given(bookService.patchBook(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .willReturn(Optional.empty());
+        Book book = createBook(1L, "Artur", "As Aventuras", "001");
+        BDDMockito.given(bookService.findById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(bookService.findById(2L)).willReturn(Optional.empty());
+
+        mvc.perform(createPatchRequest(1L, "{\"author\":\"Fulano\"}").header(HttpHeaders.IF_MATCH, "\"1\""))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(createPatchRequest(2L, "{\"author\":\"Fulano\"}").header(HttpHeaders.IF_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve recusar atualização parcial com If-Match que não é uma versão válida")
+    public void patchBookUnparseableIfMatchTest() throws Exception {
+        mvc.perform(createPatchRequest(1L, "{\"author\":\"Fulano\"}")
+                        .header(HttpHeaders.IF_MATCH, "\"99999999999999999999\""))
+                .andExpect(status().isPreconditionFailed());
+        Mockito.verify(bookService, Mockito.never())
+                .patchBook(Mockito.anyLong(), Mockito.any(), Mockito.any(), Mockito.any());
+    }
+
     @Test
     @DisplayName("Deve filtrar livros")
     public void findBooktest() throws Exception{
         Long id = 1L;
         Book book = createBook(id,"Artur", "As Aventuras", "001");
 
-        BDDMockito.given(bookService.findByFilters(Mockito.any(Book.class), Mockito.any(Pageable.class)))
-                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 10), 1));
+        BookView view = new BookView(id, book.getTitle(), book.getAuthor(), book.getIsbn());
+        BDDMockito.given(bookService.findViewsByFilters(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<BookView>(Arrays.asList(view), PageRequest.of(0, 10), 1));
 
         String queryString = String.format("?author=%s&title=%s&page=0&size=10",
                 book.getAuthor(), book.getTitle());
@@ -201,12 +362,221 @@ public class BookControllerTest {
         mvc.perform(request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(id))
+                .andExpect(jsonPath("content[0].isbn").value(book.getIsbn()))
                 .andExpect(jsonPath("totalElements").value(1))
                 .andExpect(jsonPath("pageable.pageSize").value(10))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
 
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros em fatias sem total quando solicitado")
+    public void findBookSliceTest() throws Exception{
+        BookView view = new BookView(1L, "As Aventuras", "Artur", "001");
+        BDDMockito.given(bookService.findViewSliceByFilters(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<BookView>(Arrays.asList(view), PageRequest.of(0, 10), true));
+
+        mvc.perform(createGetQueryParamsRequest("?author=Artur&page=0&size=10&withTotal=false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("last").value(false))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+        Mockito.verify(bookService, Mockito.never()).findViewsByFilters(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros respondendo em CBOR ou Smile quando solicitado")
+    public void findBookBinaryFormatsTest() throws Exception{
+        BookView view = new BookView(1L, "As Aventuras", "Artur", "001");
+        BDDMockito.given(bookService.findViewsByFilters(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<BookView>(Arrays.asList(view), PageRequest.of(0, 10), 1));
+
+        for (ObjectMapper mapper : Arrays.asList(new CBORMapper(), new SmileMapper())) {
+            MediaType mediaType = mapper instanceof CBORMapper
+                    ? MediaType.APPLICATION_CBOR
+                    : MediaType.valueOf("application/x-jackson-smile");
+
+            byte[] body = mvc.perform(createGetQueryParamsRequest("?author=Artur").accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(mediaType))
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            JsonNode page = mapper.readTree(body);
+            assertThat(page.at("/content/0/isbn").asText()).isEqualTo("001");
+            assertThat(page.at("/totalElements").asLong()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em lote informando o resultado de cada linha")
+    public void importBooksTest() throws Exception {
+        String json = new ObjectMapper().writeValueAsString(Arrays.asList(
+                createBookDTO("Artur", "As Aventuras", "001"),
+                createBookDTO("Fulano", "Viajando o mundo", "002"),
+                createBookDTO("Fulano", null, "003")));
+
+        BDDMockito.given(bookService.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(createBook(10L, "Artur", "As Aventuras", "001")));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("created").value(1))
+                .andExpect(jsonPath("rejected").value(2))
+                .andExpect(jsonPath("rows", hasSize(3)))
+                .andExpect(jsonPath("rows[0].status").value("CREATED"))
+                .andExpect(jsonPath("rows[0].id").value(10L))
+                .andExpect(jsonPath("rows[1].status").value("DUPLICATED"))
+                .andExpect(jsonPath("rows[2].status").value("INVALID"))
+                .andExpect(jsonPath("rows[2].errors", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Deve importar livros em lote no formato NDJSON")
+    public void importBooksNdjsonTest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String ndjson = objectMapper.writeValueAsString(createBookDTO("Artur", "As Aventuras", "001"))
+                + "\n" + objectMapper.writeValueAsString(createBookDTO("Fulano", "Viajando o mundo", "002"));
+
+        BDDMockito.given(bookService.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(
+                        createBook(10L, "Artur", "As Aventuras", "001"),
+                        createBook(11L, "Fulano", "Viajando o mundo", "002")));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(ndjson);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("created").value(2))
+                .andExpect(jsonPath("rejected").value(0))
+                .andExpect(jsonPath("rows[1].id").value(11L));
+    }
+
+    @Test
+    @DisplayName("Deve interromper a importação no JSON inválido informando o resultado das linhas anteriores")
+    public void importMalformedBooksTest() throws Exception {
+        String validBook = new ObjectMapper().writeValueAsString(createBookDTO("Artur", "As Aventuras", "001"));
+        BDDMockito.given(bookService.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(createBook(10L, "Artur", "As Aventuras", "001")));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content("[" + validBook + ", {\"isbn\": ");
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("aborted").value(true))
+                .andExpect(jsonPath("created").value(1))
+                .andExpect(jsonPath("rejected").value(1))
+                .andExpect(jsonPath("rows", hasSize(2)))
+                .andExpect(jsonPath("rows[0].status").value("CREATED"))
+                .andExpect(jsonPath("rows[0].id").value(10L))
+                .andExpect(jsonPath("rows[1].status").value("MALFORMED"))
+                .andExpect(jsonPath("rows[1].errors[0]").value("Malformed book at row 1"));
+        Mockito.verify(bookService, Mockito.times(1)).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    @DisplayName("Deve exportar o catálogo de livros em CSV")
+    public void exportBooksCsvTest() throws Exception {
+        mockCatalog(createBook(1L, "Artur", "As Aventuras", "001"),
+                createBook(2L, "Fulano", "Viajando, o mundo", "002"));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id,title,author,isbn\n"
+                        + "1,As Aventuras,Artur,001\n"
+                        + "2,\"Viajando, o mundo\",Fulano,002\n"));
+    }
+
+    @Test
+    @DisplayName("Deve exportar o catálogo de livros em NDJSON")
+    public void exportBooksNdjsonTest() throws Exception {
+        mockCatalog(createBook(1L, "Artur", "As Aventuras", "001"),
+                createBook(2L, "Fulano", "Viajando o mundo", "002"));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=ndjson")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertThat(lines).hasSize(2);
+        assertThat(new ObjectMapper().readValue(lines[1], BookDTO.class).getIsbn()).isEqualTo("002");
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao exportar livros em formato não suportado")
+    public void exportBooksUnsupportedFormatTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/export?format=xml")))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(bookService, Mockito.never()).forEachBook(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros paginando por cursor")
+    public void findBooksAfterTest() throws Exception {
+        Book book = createBook(1L, "Artur", "As Aventuras", "001");
+        KeysetCursor next = KeysetCursor.first("title", Sort.Direction.ASC).after(book);
+
+        BDDMockito.given(bookService.findByFiltersAfter(Mockito.any(Book.class), Mockito.any(KeysetCursor.class), Mockito.eq(1)))
+                .willReturn(new KeysetSlice<>(Arrays.asList(book), next));
+
+        mvc.perform(createGetQueryParamsRequest("?author=Artur&after=&size=1&sort=title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("size").value(1))
+                .andExpect(jsonPath("next").value(next.encode()))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+
+        Mockito.verify(bookService).findByFiltersAfter(Mockito.any(Book.class),
+                Mockito.eq(KeysetCursor.first("title", Sort.Direction.ASC)), Mockito.eq(1));
+        Mockito.verify(bookService, Mockito.never()).findViewsByFilters(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao paginar livros com cursor inválido")
+    public void findBooksAfterInvalidCursorTest() throws Exception {
+        mvc.perform(createGetQueryParamsRequest("?after=not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid cursor."));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao paginar livros por cursor com ordenação não suportada")
+    public void findBooksAfterUnsupportedSortTest() throws Exception {
+        mvc.perform(createGetQueryParamsRequest("?after=&sort=publisher"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private void mockCatalog(Book... books) {
+        BDDMockito.willAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            Arrays.stream(books).forEach(action);
+            return null;
+        }).given(bookService).forEachBook(Mockito.any());
+    }
+
     private MockHttpServletRequestBuilder createGetQueryParamsRequest(String queryString) {
         return MockMvcRequestBuilders.get(BOOK_API.concat(queryString)).accept(MediaType.APPLICATION_JSON);
     }
@@ -219,6 +589,13 @@ public class BookControllerTest {
                 .content(json);
     }
 
+    private MockHttpServletRequestBuilder createPatchRequest(Long id, String json) {
+        return MockMvcRequestBuilders
+                .patch(BOOK_API.concat("/" + id))
+                .contentType(MediaType.parseMediaType("application/merge-patch+json"))
+                .content(json);
+    }
+
     private MockHttpServletRequestBuilder createDeleteRequest(Long id) {
         return MockMvcRequestBuilders.delete(BOOK_API.concat("/" + id));
     }
@@ -0,0 +1,134 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.LoanReturnDTO;
+import com.project.libraryapi.api.dto.LoanReturnResultDTO;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.repository.BookRepository;
+import com.project.libraryapi.model.repository.LoanRepository;
+import com.project.libraryapi.service.LoanService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "library.concurrency-limit.enabled=false")
+public class LoanConcurrencyTest {
+
+    private static final String LOAN_API = "/api/loans";
+    private static final int THREADS = 32;
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    LoanService loanService;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve ter exatamente um vencedor entre pedidos concorrentes do mesmo livro")
+    public void concurrentLoansForSameBookTest() throws Exception {
+        bookRepository.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+
+        List<HttpStatus> statuses = postConcurrently(IntStream.range(0, THREADS)
+                .mapToObj(i -> new LoanInputDTO("123", "Cliente " + i))
+                .collect(Collectors.toList()));
+
+        assertThat(statuses).filteredOn(HttpStatus.CREATED::equals).hasSize(1);
+        assertThat(statuses).filteredOn(HttpStatus.BAD_REQUEST::equals).hasSize(THREADS - 1);
+        assertThat(loanRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Não deve serializar pedidos concorrentes de livros diferentes")
+    public void concurrentLoansForDifferentBooksTest() throws Exception {
+        IntStream.range(0, THREADS).forEach(i ->
+                bookRepository.save(Book.builder().isbn("isbn-" + i).author("Fulano").title("As aventuras").build()));
+
+        List<HttpStatus> statuses = postConcurrently(IntStream.range(0, THREADS)
+                .mapToObj(i -> new LoanInputDTO("isbn-" + i, "Cliente " + i))
+                .collect(Collectors.toList()));
+
+        assertThat(statuses).containsOnly(HttpStatus.CREATED);
+        assertThat(loanRepository.count()).isEqualTo(THREADS);
+    }
+
+    @Test
+    @DisplayName("Deve devolver cada empréstimo uma única vez entre devoluções em lote concorrentes")
+    public void concurrentBatchReturnsTest() throws Exception {
+        IntStream.range(0, THREADS).forEach(i ->
+                bookRepository.save(Book.builder().isbn("isbn-" + i).author("Fulano").title("As aventuras").build()));
+        postConcurrently(IntStream.range(0, THREADS)
+                .mapToObj(i -> new LoanInputDTO("isbn-" + i, "Cliente " + i))
+                .collect(Collectors.toList()));
+        List<Long> ids = loanRepository.findAll().stream().map(Loan::getId).collect(Collectors.toList());
+        LoanReturnDTO dto = LoanReturnDTO.builder().ids(ids).build();
+
+        List<LoanReturnResultDTO> results = runConcurrently(THREADS, () -> loanService.returnAll(dto));
+
+        assertThat(results.stream().flatMap(result -> result.getReturnedIds().stream()))
+                .containsExactlyInAnyOrderElementsOf(ids);
+        assertThat(results).allSatisfy(result -> assertThat(result.getReturned() + result.getAlreadyReturnedIds().size())
+                .isEqualTo(ids.size()));
+        assertThat(loanRepository.findAll()).allMatch(Loan::getReturned);
+    }
+
+    private List<HttpStatus> postConcurrently(List<LoanInputDTO> loans) throws Exception {
+        List<Callable<HttpStatus>> posts = new ArrayList<>();
+        for (LoanInputDTO loan : loans)
+            posts.add(() -> restTemplate.postForEntity(LOAN_API, loan, String.class).getStatusCode());
+        return runConcurrently(posts);
+    }
+
+    private <T> List<T> runConcurrently(int threads, Callable<T> task) throws Exception {
+        return runConcurrently(Collections.nCopies(threads, task));
+    }
+
+    private <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures)
+                results.add(future.get(30, TimeUnit.SECONDS));
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
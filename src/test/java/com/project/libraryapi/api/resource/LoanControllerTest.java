@@ -1,14 +1,23 @@
 package com.project.libraryapi.api.resource;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 import com.project.libraryapi.api.dto.LoanDTO;
 import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.LoanReturnDTO;
+import com.project.libraryapi.api.dto.LoanReturnResultDTO;
 import com.project.libraryapi.api.dto.ReturnedLoanDTO;
 import com.project.libraryapi.exception.BusinessException;
 import com.project.libraryapi.model.entity.Book;
 import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.projection.OverdueLoanView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import com.project.libraryapi.service.BookService;
 import com.project.libraryapi.service.LoanService;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
 
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -20,9 +29,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
@@ -30,17 +42,20 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Optional;
 
 import static com.project.libraryapi.api.resource.BookControllerTest.createBook;
 import static com.project.libraryapi.service.LoanServiceTest.createLoan;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
 @WebMvcTest(controllers = LoanController.class)
+@Import(BusinessMetrics.class)
 @AutoConfigureMockMvc
 public class LoanControllerTest {
 
@@ -128,9 +143,11 @@ public class LoanControllerTest {
     @DisplayName("Deve realizar a devolução de livro emprestado")
     public void returnBookTest() throws Exception {
         ReturnedLoanDTO returnedLoanDTO = ReturnedLoanDTO.builder().returned(true).build();
-        Loan loan = Loan.builder().id(1L).build();
 
-        BDDMockito.given(loanService.findById(Mockito.anyLong())).willReturn(Optional.of(loan));
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setReturned(true);
+        BDDMockito.given(loanService.updateReturned(1L, true)).willReturn(Optional.of(loan));
         String json = new ObjectMapper().writeValueAsString(returnedLoanDTO);
 
         mvc.perform(MockMvcRequestBuilders
@@ -138,8 +155,28 @@ public class LoanControllerTest {
                         .accept(MediaType.APPLICATION_JSON)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
-                .andExpect(status().isOk());
-        Mockito.verify(loanService, Mockito.times(1)).update(loan);
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(1L))
+                .andExpect(jsonPath("book.id").value(1L))
+                .andExpect(jsonPath("activeBookId").doesNotExist());
+        Mockito.verify(loanService, Mockito.times(1)).updateReturned(1L, true);
+        Mockito.verify(loanService, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve recusar atualização parcial de empréstimo com campo inválido")
+    public void patchLoanInvalidFieldTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .patch(LOAN_API.concat("/1"))
+                        .contentType(MediaType.parseMediaType("application/merge-patch+json"))
+                        .content("{\"returned\":\"yes\"}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders
+                        .patch(LOAN_API.concat("/1"))
+                        .contentType(MediaType.parseMediaType("application/merge-patch+json"))
+                        .content("{\"customer\":\"Fulano\"}"))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(loanService, Mockito.never()).updateReturned(Mockito.anyLong(), Mockito.anyBoolean());
     }
 
     @Test
@@ -147,7 +184,7 @@ public class LoanControllerTest {
     public void returnInexistentBookTest() throws Exception {
         ReturnedLoanDTO returnedLoanDTO = ReturnedLoanDTO.builder().returned(true).build();
 
-        BDDMockito.given(loanService.findById(Mockito.anyLong())).willReturn(Optional.empty());
+        BDDMockito.given(loanService.updateReturned(Mockito.anyLong(), Mockito.anyBoolean())).willReturn(Optional.empty());
         String json = new ObjectMapper().writeValueAsString(returnedLoanDTO);
 
         mvc.perform(MockMvcRequestBuilders
@@ -167,8 +204,9 @@ public class LoanControllerTest {
         loan.setId(id);
         loan.setBook(book);
 
-        BDDMockito.given(loanService.find(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class)))
-                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+        LoanView view = new LoanView(id, loan.getCustomer(), book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+        BDDMockito.given(loanService.findViews(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<LoanView>(Arrays.asList(view), PageRequest.of(0, 10), 1));
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10",
                 book.getIsbn(), loan.getCustomer());
@@ -180,10 +218,135 @@ public class LoanControllerTest {
         mvc.perform(request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].customer").value(loan.getCustomer()))
+                .andExpect(jsonPath("content[0].book.isbn").value(book.getIsbn()))
                 .andExpect(jsonPath("totalElements").value(1))
                 .andExpect(jsonPath("pageable.pageSize").value(10))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
 
     }
 
+    @Test
+    @DisplayName("Deve filtrar empréstimos em fatias sem total quando solicitado")
+    public void findLoanSliceTest() throws Exception{
+        LoanView view = new LoanView(1L, "Fulano", 1L, "As Aventuras", "Artur", "001");
+        BDDMockito.given(loanService.findViewSlice(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new SliceImpl<LoanView>(Arrays.asList(view), PageRequest.of(0, 10), false));
+
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&withTotal=false"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content[0].customer").value("Fulano"))
+                .andExpect(jsonPath("last").value(true))
+                .andExpect(jsonPath("totalElements").doesNotExist());
+        Mockito.verify(loanService, Mockito.never()).findViews(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao ordenar empréstimos por propriedade não suportada")
+    public void findLoanUnsupportedSortTest() throws Exception{
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&sort=book"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Unsupported sort property: book"));
+        Mockito.verify(loanService, Mockito.never()).findViews(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos respondendo em CBOR quando solicitado")
+    public void findLoanCborTest() throws Exception{
+        LoanView view = new LoanView(1L, "Fulano", 1L, "As Aventuras", "Artur", "001");
+        BDDMockito.given(loanService.findViews(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<LoanView>(Arrays.asList(view), PageRequest.of(0, 10), 1));
+
+        byte[] body = mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano"))
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new CBORMapper().readTree(body);
+        assertThat(page.at("/content/0/customer").asText()).isEqualTo("Fulano");
+        assertThat(page.at("/content/0/book/isbn").asText()).isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos paginando por cursor")
+    public void findLoansAfterTest() throws Exception{
+        Loan loan = createLoan();
+        loan.setId(1L);
+        String after = KeysetCursor.first("id", Sort.Direction.ASC).after(loan).encode();
+
+        BDDMockito.given(loanService.findAfter(Mockito.any(LoanInputDTO.class), Mockito.any(KeysetCursor.class), Mockito.anyInt()))
+                .willReturn(new KeysetSlice<>(Arrays.asList(loan), null));
+
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(LOAN_API.concat("?customer=Jhony&size=10&after=" + after))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("size").value(10))
+                .andExpect(jsonPath("next").doesNotExist());
+
+        Mockito.verify(loanService).findAfter(Mockito.any(LoanInputDTO.class), Mockito.eq(KeysetCursor.decode(after)), Mockito.eq(10));
+    }
+
+    @Test
+    @DisplayName("Deve listar os empréstimos atrasados")
+    public void findOverdueTest() throws Exception{
+        OverdueLoanView view = new OverdueLoanView(1L, "Fulano", LocalDate.of(2022, 1, 10), 1L, "As Aventuras", "Artur", "001");
+        BDDMockito.given(loanService.findOverdue(Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<OverdueLoanView>(Arrays.asList(view), PageRequest.of(0, 10), 1));
+
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("/overdue?page=0&size=10"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].customer").value("Fulano"))
+                .andExpect(jsonPath("content[0].loanDate").value("2022-01-10"))
+                .andExpect(jsonPath("content[0].book.isbn").value("001"))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote")
+    public void returnLoansTest() throws Exception {
+        LoanReturnDTO dto = LoanReturnDTO.builder().ids(Arrays.asList(1L, 2L)).isbns(Arrays.asList("001")).build();
+        BDDMockito.given(loanService.returnAll(Mockito.any(LoanReturnDTO.class))).willReturn(LoanReturnResultDTO.builder()
+                .returned(2)
+                .returnedIds(Arrays.asList(1L, 3L))
+                .unknownIds(Arrays.asList(2L))
+                .alreadyReturnedIds(Arrays.asList())
+                .notBorrowedIsbns(Arrays.asList())
+                .build());
+
+        mvc.perform(MockMvcRequestBuilders
+                        .patch(LOAN_API.concat("/returns"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("returned").value(2))
+                .andExpect(jsonPath("returnedIds", hasSize(2)))
+                .andExpect(jsonPath("unknownIds[0]").value(2));
+
+        Mockito.verify(loanService).returnAll(dto);
+        Mockito.verify(loanService, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao devolver em lote sem ids nem isbns")
+    public void returnLoansEmptyTest() throws Exception {
+        mvc.perform(MockMvcRequestBuilders
+                        .patch(LOAN_API.concat("/returns"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(loanService, Mockito.never()).returnAll(Mockito.any(LoanReturnDTO.class));
+    }
+
 }
@@ -0,0 +1,53 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@AutoConfigureMetrics
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class MetricsEndpointTest {
+
+    private static final String BOOK_API = "/api/books";
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown(){
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve expor tempos por endpoint, serviço e repositório, contadores de negócio e do cache para o Prometheus")
+    public void prometheusScrapeTest(){
+        BookDTO book = BookDTO.builder().isbn("123").author("Fulano").title("As aventuras").build();
+        assertThat(restTemplate.postForEntity(BOOK_API, book, String.class).getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(restTemplate.postForEntity(BOOK_API, book, String.class).getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.getForEntity(BOOK_API + "/999999", String.class).getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+
+        String scrape = restTemplate.getForObject("/actuator/prometheus", String.class);
+
+        assertThat(scrape)
+                .contains("http_server_requests_seconds_bucket{exception=\"None\",method=\"POST\",outcome=\"SUCCESS\",status=\"201\",uri=\"/api/books\"")
+                .contains("library_service_seconds_bucket{class=\"com.project.libraryapi.service.impl.BookServiceImpl\",exception=\"BusinessException\",method=\"save\"")
+                .contains("spring_data_repository_invocations_seconds_bucket{exception=\"None\",method=\"findById\",repository=\"BookRepository\"")
+                .contains("library_business_rejections_total{reason=\"duplicate_isbn\",} 1.0")
+                .contains("library_not_found_total 1.0")
+                .containsPattern("hibernate_second_level_cache_requests_total\\{.*region=\"book\",result=\"miss\",\\}");
+    }
+}
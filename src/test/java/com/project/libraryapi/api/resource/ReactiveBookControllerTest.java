@@ -0,0 +1,282 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.exception.BusinessException;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.row.BookRow;
+import com.project.libraryapi.service.ReactiveBookService;
+import com.project.libraryapi.service.ReactiveLoanService;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebFluxTest(controllers = ReactiveBookController.class)
+@Import(BusinessMetrics.class)
+public class ReactiveBookControllerTest {
+
+    static final String BOOK_API = "/api/books";
+
+    @Autowired
+    WebTestClient client;
+
+    @MockBean
+    ReactiveBookService bookService;
+
+    @MockBean
+    ReactiveLoanService loanService;
+
+    @Test
+    @DisplayName("Deve criar um livro com sucesso.")
+    public void createBookTest() {
+        BookDTO bookDTO = createBookDTO("Artur", "As Aventuras", "001");
+        BookRow savedBook = createBookRow(10L, "Artur", "As Aventuras", "001");
+
+        BDDMockito.given(bookService.save(Mockito.any(BookRow.class))).willReturn(Mono.just(savedBook));
+
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(bookDTO)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("id").isEqualTo(10)
+                .jsonPath("title").isEqualTo(bookDTO.getTitle())
+                .jsonPath("author").isEqualTo(bookDTO.getAuthor())
+                .jsonPath("isbn").isEqualTo(bookDTO.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de validação quando não houver dados suficientes para criação de livro.")
+    public void createInvalidBookTest() {
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(new BookDTO())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro quando já houver livro com mesmo ISBN")
+    public void createBookWithDuplicatedIsbnTest() {
+        String messageError = "ISBN já cadastrado.";
+        BDDMockito.given(bookService.save(Mockito.any(BookRow.class)))
+                .willReturn(Mono.error(new BusinessException(messageError)));
+
+        client.post().uri(BOOK_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(createBookDTO("Artur", "As Aventuras", "001"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(1)
+                .jsonPath("errors[0]").isEqualTo(messageError);
+    }
+
+    @Test
+    @DisplayName("Deve obter informações de um livro")
+    public void getBookByIdTest() {
+        BookRow book = createBookRow(10L, "Artur", "As Aventuras", "001");
+        BDDMockito.given(bookService.findById(10L)).willReturn(Mono.just(book));
+
+        client.get().uri(BOOK_API + "/10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("id").isEqualTo(10)
+                .jsonPath("title").isEqualTo(book.getTitle())
+                .jsonPath("author").isEqualTo(book.getAuthor())
+                .jsonPath("isbn").isEqualTo(book.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 'Not Found' quando não encontrar livro com o id informado")
+    public void bookNotFoundTest() {
+        BDDMockito.given(bookService.findById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        client.get().uri(BOOK_API + "/10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve informar se um livro está disponível para empréstimo")
+    public void getBookAvailabilityTest() {
+        BookRow book = createBookRow(10L, "Artur", "As Aventuras", "001");
+        BDDMockito.given(bookService.findById(10L)).willReturn(Mono.just(book));
+        BDDMockito.given(loanService.isAvailable(book)).willReturn(Mono.just(false));
+
+        client.get().uri(BOOK_API + "/10/availability")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("id").isEqualTo(10)
+                .jsonPath("available").isEqualTo(false);
+    }
+
+    @Test
+    @DisplayName("Deve retornar 'Not Found' ao consultar disponibilidade de livro inexistente")
+    public void bookAvailabilityNotFoundTest() {
+        BDDMockito.given(bookService.findById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        client.get().uri(BOOK_API + "/10/availability")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve deletar um livro por id")
+    public void deleteBookTest() {
+        BookRow book = BookRow.builder().id(1L).build();
+        BDDMockito.given(bookService.findById(Mockito.anyLong())).willReturn(Mono.just(book));
+        BDDMockito.given(bookService.delete(book)).willReturn(Mono.empty());
+
+        client.delete().uri(BOOK_API + "/1")
+                .exchange()
+                .expectStatus().isNoContent();
+        Mockito.verify(bookService).delete(book);
+    }
+
+    @Test
+    @DisplayName("Deve retornar 'Not Found' quando não encontrar livro para deletar")
+    public void deleteInexistentBookTest() {
+        BDDMockito.given(bookService.findById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        client.delete().uri(BOOK_API + "/1")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve atualizar um livro")
+    public void updateBookTest() {
+        BookDTO bookDTO = BookDTO.builder().author("Fulano").title("Viajando o mundo").build();
+        BookRow bookToUpdate = createBookRow(1L, "Artur", "As Aventuras", "001");
+        bookToUpdate.setVersion(1L);
+        BDDMockito.given(bookService.findById(1L)).willReturn(Mono.just(bookToUpdate));
+        BDDMockito.given(bookService.updateBook(Mockito.any(BookRow.class)))
+                .willAnswer(invocation -> Mono.just(invocation.<BookRow>getArgument(0).toBuilder().version(2L).build()));
+
+        client.put().uri(BOOK_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"1\"")
+                .bodyValue(bookDTO)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2\"")
+                .expectBody()
+                .jsonPath("id").isEqualTo(1)
+                .jsonPath("author").isEqualTo("Fulano")
+                .jsonPath("title").isEqualTo("Viajando o mundo")
+                .jsonPath("isbn").isEqualTo("001");
+    }
+
+    @Test
+    @DisplayName("Deve exigir If-Match para atualizar um livro")
+    public void updateBookWithoutIfMatchTest() {
+        BookRow book = createBookRow(1L, "Artur", "As Aventuras", "001");
+        book.setVersion(1L);
+        BDDMockito.given(bookService.findById(1L)).willReturn(Mono.just(book));
+
+        client.put().uri(BOOK_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(BookDTO.builder().author("Fulano").title("Viajando o mundo").build())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_REQUIRED);
+        Mockito.verify(bookService, Mockito.never()).updateBook(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve responder 'Not Modified' sem consultar o livro quando a versão em cache for a informada")
+    public void notModifiedFromCachedVersionTest() {
+        BDDMockito.given(bookService.findCachedVersion(10L))
+                .willReturn(Optional.of(new BookVersion(3L, Instant.parse("2022-10-01T10:15:30Z"))));
+
+        client.get().uri(BOOK_API + "/10")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"");
+        Mockito.verify(bookService, Mockito.never()).findById(Mockito.anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 'Not Found' quando não encontrar o livro para atualizar")
+    public void updateInexistentBookTest() {
+        BookDTO bookDTO = BookDTO.builder().author("Fulano").title("Viajando o mundo").build();
+        BDDMockito.given(bookService.findById(Mockito.anyLong())).willReturn(Mono.empty());
+
+        client.put().uri(BOOK_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(bookDTO)
+                .exchange()
+                .expectStatus().isNotFound();
+        Mockito.verify(bookService, Mockito.never()).updateBook(Mockito.any());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros")
+    public void findBooktest() {
+        BookView view = new BookView(1L, "As Aventuras", "Artur", "001");
+        BDDMockito.given(bookService.findViewsByFilters(Mockito.any(BookRow.class), Mockito.any(Pageable.class)))
+                .willReturn(Mono.just(new PageImpl<>(Arrays.asList(view), PageRequest.of(0, 10), 1)));
+
+        client.get().uri(BOOK_API + "?author=Artur&title=As Aventuras&page=0&size=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("content[0].id").isEqualTo(1)
+                .jsonPath("content[0].isbn").isEqualTo("001")
+                .jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("pageable.pageSize").isEqualTo(10)
+                .jsonPath("pageable.pageNumber").isEqualTo(0);
+
+        Mockito.verify(bookService).findViewsByFilters(
+                Mockito.argThat(filter -> "Artur".equals(filter.getAuthor()) && "As Aventuras".equals(filter.getTitle())),
+                Mockito.eq(PageRequest.of(0, 10)));
+    }
+
+    private BookDTO createBookDTO(String author, String title, String isbn) {
+        return BookDTO.builder().author(author).title(title).isbn(isbn).build();
+    }
+
+    static BookRow createBookRow(Long id, String author, String title, String isbn) {
+        return BookRow.builder().id(id).author(author).title(title).isbn(isbn).build();
+    }
+}
@@ -0,0 +1,145 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.BookDTO;
+import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.ReturnedLoanDTO;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.repository.BookRepository;
+import com.project.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles({"test", "reactive"})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveLibraryApiTest {
+
+    private static final String BOOK_API = "/api/books";
+    private static final String LOAN_API = "/api/loans";
+    private static final int REQUESTS = 32;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    WebTestClient client;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar livros na mesma base usada pela pilha servlet e recusar ISBN duplicado")
+    public void createBookTest() {
+        BookDTO created = client.post().uri(BOOK_API)
+                .bodyValue(BookDTO.builder().title("As Aventuras").author("Artur").isbn("001").build())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(BookDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(bookRepository.findById(created.getId())).map(Book::getIsbn).contains("001");
+
+        client.post().uri(BOOK_API)
+                .bodyValue(BookDTO.builder().title("Outro").author("Fulano").isbn("001").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("ISBN already registered.");
+
+        client.get().uri(BOOK_API + "?title=aventuras&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("content[0].id").isEqualTo(created.getId());
+    }
+
+    @Test
+    @DisplayName("Deve permitir um único empréstimo ativo por livro até a devolução")
+    public void loanLifecycleTest() {
+        Book book = bookRepository.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+
+        Long loanId = postLoan(new LoanInputDTO("123", "Jhony"))
+                .expectStatus().isCreated()
+                .expectBody(Long.class)
+                .returnResult()
+                .getResponseBody();
+        postLoan(new LoanInputDTO("123", "Maria"))
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Book already borrowed.");
+        expectAvailability(book.getId(), false);
+
+        client.patch().uri(LOAN_API + "/" + loanId)
+                .bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isOk();
+        expectAvailability(book.getId(), true);
+
+        client.get().uri(LOAN_API + "?customer=Jhony&isbn=123&page=0&size=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("content[0].book.isbn").isEqualTo("123");
+
+        postLoan(new LoanInputDTO("123", "Maria")).expectStatus().isCreated();
+        client.patch().uri(LOAN_API + "/" + loanId)
+                .bodyValue(ReturnedLoanDTO.builder().returned(true).build())
+                .exchange()
+                .expectStatus().isOk();
+        expectAvailability(book.getId(), false);
+    }
+
+    @Test
+    @DisplayName("Deve ter exatamente um vencedor entre pedidos concorrentes do mesmo livro")
+    public void concurrentLoansForSameBookTest() {
+        bookRepository.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        WebClient webClient = WebClient.create("http://localhost:" + port);
+
+        List<HttpStatus> statuses = Flux.range(0, REQUESTS)
+                .flatMap(i -> webClient.post().uri(LOAN_API)
+                        .bodyValue(new LoanInputDTO("123", "Cliente " + i))
+                        .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode())), REQUESTS)
+                .collectList()
+                .block();
+
+        assertThat(statuses).filteredOn(HttpStatus.CREATED::equals).hasSize(1);
+        assertThat(statuses).filteredOn(HttpStatus.BAD_REQUEST::equals).hasSize(REQUESTS - 1);
+        assertThat(loanRepository.count()).isEqualTo(1);
+    }
+
+    private WebTestClient.ResponseSpec postLoan(LoanInputDTO loanDTO) {
+        return client.post().uri(LOAN_API).bodyValue(loanDTO).exchange();
+    }
+
+    private void expectAvailability(Long bookId, boolean available) {
+        client.get().uri(BOOK_API + "/" + bookId + "/availability")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("available").isEqualTo(available);
+    }
+}
@@ -0,0 +1,172 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.ReturnedLoanDTO;
+import com.project.libraryapi.exception.BusinessException;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.row.BookRow;
+import com.project.libraryapi.model.row.LoanRow;
+import com.project.libraryapi.service.ReactiveBookService;
+import com.project.libraryapi.service.ReactiveLoanService;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.BDDMockito;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static com.project.libraryapi.api.resource.ReactiveBookControllerTest.createBookRow;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebFluxTest(controllers = ReactiveLoanController.class)
+@Import(BusinessMetrics.class)
+public class ReactiveLoanControllerTest {
+
+    private static final String LOAN_API = "/api/loans";
+
+    @Autowired
+    WebTestClient client;
+
+    @MockBean
+    ReactiveBookService bookService;
+
+    @MockBean
+    ReactiveLoanService loanService;
+
+    @Test
+    @DisplayName("Deve criar um empréstimo")
+    public void createLoanTest() {
+        BookRow book = createBookRow(1L, "Jhony", "As Aventuras", "123");
+        LoanRow loan = LoanRow.builder().id(1L).bookId(1L).customer("Jhony").loanDate(LocalDate.now()).build();
+
+        BDDMockito.given(bookService.findByIsbn("123")).willReturn(Mono.just(book));
+        BDDMockito.given(loanService.save(Mockito.any(LoanRow.class))).willReturn(Mono.just(loan));
+
+        createLoanPostRequest(createLoanDTO("123", "Jhony"))
+                .expectStatus().isCreated()
+                .expectBody(String.class).isEqualTo("1");
+        Mockito.verify(loanService).save(Mockito.argThat(saved -> saved.getBookId() == 1L && "Jhony".equals(saved.getCustomer())));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao tentar fazer empréstimo de livro inexistente")
+    public void createLoanInvalidIsbnTest() {
+        BDDMockito.given(bookService.findByIsbn("123")).willReturn(Mono.empty());
+
+        createLoanPostRequest(createLoanDTO("123", "Jhony"))
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(1)
+                .jsonPath("errors[0]").isEqualTo("Book not found for passed isbn");
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao tentar fazer empréstimo de livro já emprestado")
+    public void borrowedBookLoanTest() {
+        BookRow book = createBookRow(1L, "Fulano", "As Aventuras", "123");
+
+        BDDMockito.given(bookService.findByIsbn("123")).willReturn(Mono.just(book));
+        BDDMockito.given(loanService.save(Mockito.any(LoanRow.class)))
+                .willReturn(Mono.error(new BusinessException("Book already borrowed")));
+
+        createLoanPostRequest(createLoanDTO("123", "Jhony"))
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors.length()").isEqualTo(1)
+                .jsonPath("errors[0]").isEqualTo("Book already borrowed");
+    }
+
+    @Test
+    @DisplayName("Deve realizar a devolução de livro emprestado")
+    public void returnBookTest() {
+        LoanRow loan = LoanRow.builder().id(1L).bookId(1L).returned(true).build();
+
+        BDDMockito.given(loanService.updateReturned(1L, true)).willReturn(Mono.just(loan));
+
+        createLoanPatchRequest(ReturnedLoanDTO.builder().returned(true).build())
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("returned").isEqualTo(true);
+        Mockito.verify(loanService, Mockito.times(1)).updateReturned(1L, true);
+    }
+
+    @Test
+    @DisplayName("Deve retornar 'Not Found' quando tentar devolver livro de empréstimo inexistente")
+    public void returnInexistentBookTest() {
+        BDDMockito.given(loanService.updateReturned(Mockito.anyLong(), Mockito.anyBoolean())).willReturn(Mono.empty());
+
+        createLoanPatchRequest(ReturnedLoanDTO.builder().returned(true).build())
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos")
+    public void findLoantest() {
+        LoanView view = new LoanView(1L, "Jhony", 1L, "As Aventuras", "Artur", "001");
+        BDDMockito.given(loanService.findViews(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(Mono.just(new PageImpl<>(Arrays.asList(view), PageRequest.of(0, 10), 1)));
+
+        client.get().uri(LOAN_API + "?isbn=001&customer=Jhony&page=0&size=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("content.length()").isEqualTo(1)
+                .jsonPath("content[0].customer").isEqualTo("Jhony")
+                .jsonPath("content[0].book.isbn").isEqualTo("001")
+                .jsonPath("totalElements").isEqualTo(1)
+                .jsonPath("pageable.pageSize").isEqualTo(10)
+                .jsonPath("pageable.pageNumber").isEqualTo(0);
+
+        Mockito.verify(loanService).findViews(Mockito.eq(createLoanDTO("001", "Jhony")), Mockito.eq(PageRequest.of(0, 10)));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro ao ordenar empréstimos por propriedade não suportada")
+    public void findLoanUnsupportedSortTest() {
+        client.get().uri(LOAN_API + "?customer=Jhony&sort=returned")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("errors[0]").isEqualTo("Unsupported sort property: returned");
+
+        Mockito.verify(loanService, Mockito.never()).findViews(Mockito.any(LoanInputDTO.class), Mockito.any(Pageable.class));
+    }
+
+    private WebTestClient.ResponseSpec createLoanPostRequest(LoanInputDTO loanDTO) {
+        return client.post().uri(LOAN_API)
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(loanDTO)
+                .exchange();
+    }
+
+    private WebTestClient.ResponseSpec createLoanPatchRequest(ReturnedLoanDTO returnedLoanDTO) {
+        return client.patch().uri(LOAN_API + "/1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(returnedLoanDTO)
+                .exchange();
+    }
+
+    private LoanInputDTO createLoanDTO(String isbn, String customer) {
+        return LoanInputDTO.builder().isbn(isbn).customer(customer).build();
+    }
+}
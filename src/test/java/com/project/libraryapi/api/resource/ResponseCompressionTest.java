@@ -0,0 +1,88 @@
+package com.project.libraryapi.api.resource;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ResponseCompressionTest {
+
+    private static final String BOOK_API = "/api/books";
+
+    @Autowired
+    TestRestTemplate restTemplate;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown(){
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve comprimir listagens grandes em JSON e em CBOR")
+    public void compressLargeListingsTest(){
+        bookRepository.saveAll(IntStream.range(0, 100)
+                .mapToObj(i -> Book.builder().isbn("isbn-" + i).author("Autor " + i).title("Título " + i).build())
+                .collect(Collectors.toList()));
+
+        assertThat(get("?size=100", MediaType.APPLICATION_JSON).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                .isEqualTo("gzip");
+        assertThat(get("?size=100", MediaType.APPLICATION_CBOR).getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))
+                .isEqualTo("gzip");
+    }
+
+    @Test
+    @DisplayName("Deve aplicar o tamanho mínimo de compressão às respostas do Jackson")
+    public void minResponseSizeTest(){
+        bookRepository.saveAll(IntStream.range(0, 40)
+                .mapToObj(i -> Book.builder().isbn("isbn-" + i).author("Autor " + i).title("Título " + i).build())
+                .collect(Collectors.toList()));
+
+        ResponseEntity<byte[]> small = get("?size=10", MediaType.APPLICATION_JSON);
+        ResponseEntity<byte[]> aboveMinimum = get("?size=40", MediaType.APPLICATION_JSON);
+
+        assertThat(small.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(small.getHeaders().getContentLength()).isEqualTo(small.getBody().length).isLessThan(2048);
+        assertThat(new String(small.getBody(), StandardCharsets.UTF_8)).contains("isbn-0");
+        assertThat(aboveMinimum.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+    }
+
+    @Test
+    @DisplayName("Não deve comprimir quando o cliente não aceitar gzip")
+    public void skipWithoutAcceptEncodingTest(){
+        bookRepository.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+
+        ResponseEntity<String> response = restTemplate.getForEntity(BOOK_API + "?size=1", String.class);
+
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+        assertThat(response.getBody()).contains("As aventuras");
+    }
+
+    private ResponseEntity<byte[]> get(String queryString, MediaType accept) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(Collections.singletonList(accept));
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        return restTemplate.exchange(BOOK_API + queryString, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
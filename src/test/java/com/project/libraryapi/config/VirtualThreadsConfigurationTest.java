@@ -0,0 +1,43 @@
+package com.project.libraryapi.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadsConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsConfiguration.class);
+
+    @Test
+    @DisplayName("Não deve trocar o executor do Tomcat quando o modo estiver desligado")
+    public void disabledByDefaultTest(){
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ExecutorService.class));
+    }
+
+    @Test
+    @DisplayName("Deve executar as tarefas em threads virtuais no Java 21")
+    public void virtualThreadExecutorTest(){
+        assumeTrue(Runtime.version().feature() >= 21);
+
+        contextRunner.withPropertyValues("library.threads.virtual.enabled=true").run(context -> {
+            Thread thread = context.getBean(ExecutorService.class).submit(Thread::currentThread).get();
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        });
+    }
+
+    @Test
+    @DisplayName("Deve falhar na inicialização quando o Java não tiver threads virtuais")
+    public void requiresJava21Test(){
+        assumeTrue(Runtime.version().feature() < 21);
+
+        contextRunner.withPropertyValues("library.threads.virtual.enabled=true")
+                .run(context -> assertThat(context).hasFailed()
+                        .getFailure().hasRootCauseInstanceOf(NoSuchMethodException.class));
+    }
+}
@@ -1,7 +1,11 @@
 package com.project.libraryapi.repository;
 
+import com.project.libraryapi.model.projection.BookView;
 import com.project.libraryapi.model.repository.BookRepository;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import com.project.libraryapi.model.entity.Book;
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,10 +16,18 @@ import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -57,6 +69,45 @@ public class BookRepositoryTest {
         assertThat(exist).isFalse();
     }
 
+    @Test
+    @DisplayName("Deve retornar somente os ISBNs já cadastrados")
+    public void findRegisteredIsbnsTest(){
+        entityManager.persist(createBook("123", "Kamilla", "Viajando o mundo"));
+        entityManager.persist(createBook("456", "Artur", "As Aventuras"));
+
+        Set<String> registeredIsbns = repository.findRegisteredIsbns(Arrays.asList("123", "456", "789"));
+
+        assertThat(registeredIsbns).containsExactlyInAnyOrder("123", "456");
+    }
+
+    @Test
+    @DisplayName("Deve inserir livros em lote")
+    public void insertAllBooksTest(){
+        List<Book> books = Arrays.asList(
+                createBook("123", "Kamilla", "Viajando o mundo"),
+                createBook("456", "Artur", "As Aventuras"));
+
+        List<Book> savedBooks = repository.insertAll(books);
+
+        assertThat(savedBooks).allMatch(book -> book.getId() != null);
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve percorrer todos os livros em ordem de id sem mantê-los gerenciados")
+    public void forEachBookTest(){
+        Book first = entityManager.persist(createBook("123", "Kamilla", "Viajando o mundo"));
+        Book second = entityManager.persist(createBook("456", "Artur", "As Aventuras"));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Book> books = new ArrayList<>();
+        repository.forEachBook(books::add);
+
+        assertThat(books).extracting(Book::getId).containsExactly(first.getId(), second.getId());
+        assertThat(books).noneMatch(book -> entityManager.getEntityManager().contains(book));
+    }
+
     @Test
     @DisplayName("Deve obter um livro por Id")
     public void findByIdTest(){
@@ -112,6 +163,135 @@ public class BookRepositoryTest {
         assertThat(bookListResult.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros direto em projeções somente leitura ordenadas e paginadas")
+    public void findBookViewsByFiltersTest(){
+        entityManager.persist(createBook("1", "Kamilla", "Viajando o mundo A"));
+        entityManager.persist(createBook("2", "Artur", "As Aventuras"));
+        entityManager.persist(createBook("3", "Kamilla", "Viajando o mundo B"));
+        entityManager.persist(createBook("4", "Kamilla", "Viajando o mundo C"));
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<BookView> page = repository.findViewsByFilters(Book.builder().author("kamilla").build(),
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "title")));
+
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(BookView::getIsbn).containsExactly("4", "3");
+        assertThat(page.getContent().get(0).getTitle()).isEqualTo("Viajando o mundo C");
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros em fatias sem contar o total")
+    public void findBookViewSliceByFiltersTest(){
+        entityManager.persist(createBook("1", "Kamilla", "Viajando o mundo A"));
+        entityManager.persist(createBook("2", "Artur", "As Aventuras"));
+        entityManager.persist(createBook("3", "Kamilla", "Viajando o mundo B"));
+        entityManager.persist(createBook("4", "Kamilla", "Viajando o mundo C"));
+        entityManager.flush();
+        entityManager.clear();
+        Book filter = Book.builder().author("kamilla").build();
+
+        Slice<BookView> first = repository.findViewSliceByFilters(filter, PageRequest.of(0, 2, Sort.by("title")));
+        Slice<BookView> last = repository.findViewSliceByFilters(filter, PageRequest.of(1, 2, Sort.by("title")));
+
+        assertThat(first.getContent()).extracting(BookView::getIsbn).containsExactly("1", "3");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(last.getContent()).extracting(BookView::getIsbn).containsExactly("4");
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve paginar livros filtrados por cursor na ordem do título")
+    public void findBooksByFiltersAfterTest(){
+        entityManager.persist(createBook("1", "Kamilla", "Viajando o mundo C"));
+        entityManager.persist(createBook("2", "Kamilla", "Viajando o mundo A"));
+        entityManager.persist(createBook("3", "Artur", "As Aventuras"));
+        entityManager.persist(createBook("4", "Kamilla", "Viajando o mundo B"));
+        entityManager.persist(createBook("5", "Kamilla", "Viajando o mundo A"));
+        Book filter = Book.builder().title("viajando").build();
+
+        List<String> isbns = new ArrayList<>();
+        KeysetCursor cursor = KeysetCursor.first("title", Sort.Direction.ASC);
+        int pages = 0;
+        do {
+            KeysetSlice<Book> slice = repository.findByFiltersAfter(filter, cursor, 2);
+            slice.getContent().forEach(book -> isbns.add(book.getIsbn()));
+            cursor = slice.getNext();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(2);
+        assertThat(isbns).containsExactly("2", "5", "4", "1");
+    }
+
+    @Test
+    @DisplayName("Deve paginar livros por cursor atravessando autores nulos e vazios nas duas direções")
+    public void findBooksAfterAcrossNullSortValuesTest(){
+        entityManager.persist(createBook("1", null, "Viajando o mundo"));
+        entityManager.persist(createBook("2", "", "Viajando o mundo"));
+        entityManager.persist(createBook("3", null, "Viajando o mundo"));
+        entityManager.persist(createBook("4", "Artur", "Viajando o mundo"));
+        entityManager.persist(createBook("5", "Kamilla", "Viajando o mundo"));
+
+        assertThat(isbnsByCursor("author", Sort.Direction.ASC)).containsExactly("1", "3", "2", "4", "5");
+        assertThat(isbnsByCursor("author", Sort.Direction.DESC)).containsExactly("5", "4", "2", "3", "1");
+    }
+
+    @Test
+    @DisplayName("Deve paginar livros por cursor em ordem decrescente de id")
+    public void findBooksAfterByIdDescTest(){
+        Book first = entityManager.persist(createBook("1", "Kamilla", "Viajando o mundo"));
+        Book second = entityManager.persist(createBook("2", "Artur", "As Aventuras"));
+        Book third = entityManager.persist(createBook("3", "Fulano", "Viajando o mundo"));
+
+        KeysetSlice<Book> firstSlice = repository.findByFiltersAfter(new Book(), KeysetCursor.first("id", Sort.Direction.DESC), 2);
+        KeysetSlice<Book> secondSlice = repository.findByFiltersAfter(new Book(), KeysetCursor.decode(firstSlice.getNext().encode()), 2);
+
+        assertThat(firstSlice.getContent()).extracting(Book::getId).containsExactly(third.getId(), second.getId());
+        assertThat(secondSlice.getContent()).extracting(Book::getId).containsExactly(first.getId());
+        assertThat(secondSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve versionar o livro e registrar a data de modificação a cada atualização")
+    public void versionBookOnUpdateTest(){
+        Book book = entityManager.persistFlushFind(createBook("123", "Kamilla", "Viajando o mundo"));
+        Instant created = book.getLastModified();
+
+        book.setTitle("Viajando o mundo de novo");
+        entityManager.flush();
+
+        assertThat(book.getVersion()).isEqualTo(1L);
+        assertThat(created).isNotNull();
+        assertThat(book.getLastModified()).isAfterOrEqualTo(created);
+    }
+
+    @Test
+    @DisplayName("Deve recusar a gravação de um livro com versão desatualizada")
+    public void rejectStaleVersionTest(){
+        Book book = entityManager.persistFlushFind(createBook("123", "Kamilla", "Viajando o mundo"));
+        Book stale = book.toBuilder().title("Outro título").version(book.getVersion()).build();
+        book.setTitle("Viajando o mundo de novo");
+        entityManager.flush();
+        entityManager.detach(book);
+
+        Throwable exception = Assertions.catchThrowable(() -> repository.saveAndFlush(stale));
+
+        assertThat(exception).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
+    private List<String> isbnsByCursor(String sortProperty, Sort.Direction direction) {
+        List<String> isbns = new ArrayList<>();
+        KeysetCursor cursor = KeysetCursor.first(sortProperty, direction);
+        do {
+            KeysetSlice<Book> slice = repository.findByFiltersAfter(new Book(), cursor, 2);
+            slice.getContent().forEach(book -> isbns.add(book.getIsbn()));
+            cursor = slice.hasNext() ? KeysetCursor.decode(slice.getNext().encode()) : null;
+        } while (cursor != null);
+        return isbns;
+    }
+
     private Book createBook(String isbn, String author, String title) {
         return Book.builder().isbn(isbn).author(author).title(title).build();
     }
@@ -0,0 +1,142 @@
+package com.project.libraryapi.repository;
+
+import com.project.libraryapi.api.dto.LoanDTO;
+import com.project.libraryapi.api.mapper.LoanMapper;
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
+import com.project.libraryapi.model.repository.LoanRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mapstruct.factory.Mappers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts the JDBC statements needed to list one page of loans and map it to DTOs,
+ * which walks into every loan's book.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class LoanQueryCountTest {
+
+    private static final int LOANS = 10;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository repository;
+
+    LoanMapper loanMapper = Mappers.getMapper(LoanMapper.class);
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp(){
+        for (int i = 0; i < LOANS; i++) {
+            Book book = Book.builder().isbn("isbn-" + i).author("Fulano").title("As aventuras").build();
+            entityManager.persist(book);
+            entityManager.persist(Loan.builder()
+                    .customer(i % 2 == 0 ? "Jhony" : "Cliente " + i)
+                    .book(book)
+                    .loanDate(LocalDate.now())
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("Deve listar empréstimos por isbn com o livro em uma consulta mais a contagem")
+    public void findViewsByBookIsbnStatementCountTest(){
+        Page<LoanView> page = countingStatements(() -> repository.findViewsByBookIsbn("isbn-1", PageRequest.of(0, 5)));
+
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve listar empréstimos por customer com os livros em uma consulta mais a contagem")
+    public void findViewsByCustomerStatementCountTest(){
+        Page<LoanView> page = countingStatements(() -> repository.findViewsByCustomer("Jhony", PageRequest.of(0, 3)));
+
+        assertThat(page.getContent()).hasSize(3).allSatisfy(loan -> assertThat(loan.getBook().getIsbn()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve listar empréstimos por isbn ou customer carregando os livros em lote")
+    public void findViewsByBookIsbnOrCustomerStatementCountTest(){
+        Page<LoanView> page = countingStatements(() ->
+                repository.findViewsByBookIsbnOrCustomer("isbn-1", "Jhony", PageRequest.of(0, 4)));
+
+        assertThat(page.getContent()).hasSize(4).allSatisfy(loan -> assertThat(loan.getBook().getIsbn()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve listar fatias de empréstimos por customer em uma consulta, sem contagem")
+    public void findViewSliceByCustomerStatementCountTest(){
+        Slice<LoanView> slice = countingStatements(() -> repository.findViewSliceByCustomer("Jhony", PageRequest.of(0, 3)));
+
+        assertThat(slice.getContent()).hasSize(3);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve listar fatias de empréstimos por isbn ou customer sem contagem")
+    public void findViewSliceByBookIsbnOrCustomerStatementCountTest(){
+        Slice<LoanView> slice = countingStatements(() ->
+                repository.findViewSliceByBookIsbnOrCustomer("isbn-1", "Jhony", PageRequest.of(1, 4)));
+
+        assertThat(slice.getContent()).hasSize(2).allSatisfy(loan -> assertThat(loan.getBook().getIsbn()).isNotNull());
+        assertThat(slice.hasNext()).isFalse();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve paginar por cursor com os livros buscados junto, uma consulta por filtro")
+    public void findByBookIsbnOrCustomerAfterStatementCountTest(){
+        KeysetSlice<Loan> slice = countingStatements(() -> {
+            KeysetSlice<Loan> result = repository.findByBookIsbnOrCustomerAfter(
+                    "isbn-1", "Jhony", KeysetCursor.first("id", Sort.Direction.ASC), 4);
+            toDTOs(result.getContent());
+            return result;
+        });
+
+        assertThat(slice.getContent()).hasSize(4);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private <T> T countingStatements(Supplier<T> action) {
+        statistics.clear();
+        return action.get();
+    }
+
+    private List<LoanDTO> toDTOs(List<Loan> loans) {
+        return loans.stream().map(loanMapper::toDTO).collect(Collectors.toList());
+    }
+}
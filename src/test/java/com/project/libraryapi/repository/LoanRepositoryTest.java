@@ -2,6 +2,9 @@ package com.project.libraryapi.repository;
 
 import com.project.libraryapi.model.entity.Book;
 import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import com.project.libraryapi.model.repository.LoanRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -12,13 +15,19 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import javax.persistence.PersistenceException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.project.libraryapi.service.BookServiceTest.createBook;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -43,23 +52,172 @@ public class LoanRepositoryTest {
     }
 
     @Test
-    @DisplayName("Deve buscar empréstimo pelo isbn do livro ou costumer")
-    public void findByBookIsbnOrCustomerTest(){
+    @DisplayName("Deve permitir apenas um empréstimo ativo por livro")
+    public void oneActiveLoanPerBookTest(){
         Loan loan = createAndPersistLoan();
+        loan.setReturned(true);
+        entityManager.flush();
 
-        Page<Loan> pageResult = repository.findByBookIsbnOrCustomer(
-                "1234", "Jhony", PageRequest.of(0, 10));
+        Loan secondLoan = Loan.builder().customer("Fulano").book(loan.getBook()).loanDate(LocalDate.now()).build();
+        entityManager.persistAndFlush(secondLoan);
+        Loan thirdLoan = Loan.builder().customer("Ciclano").book(loan.getBook()).loanDate(LocalDate.now()).build();
 
-        assertThat(pageResult.getContent()).hasSize(1);
-        assertThat(pageResult.getTotalElements()).isEqualTo(1);
-        assertThat(pageResult.getPageable().getPageSize()).isEqualTo(10);
-        assertThat(pageResult.getPageable().getPageNumber()).isEqualTo(0);
-        assertThat(pageResult.getContent().get(0).getCustomer()).isEqualTo(loan.getCustomer());
-        assertThat(pageResult.getContent().get(0).getBook().getIsbn()).isEqualTo(loan.getBook().getIsbn());
+        Throwable exception = catchThrowable(() -> entityManager.persistAndFlush(thirdLoan));
+
+        assertThat(loan.getActiveBookId()).isNull();
+        assertThat(secondLoan.getActiveBookId()).isEqualTo(loan.getBook().getId());
+        assertThat(exception).isInstanceOf(PersistenceException.class);
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote liberando o livro para novo empréstimo")
+    public void markReturnedTest(){
+        Loan open = createAndPersistLoan("001");
+        Loan returned = createAndPersistLoan("002");
+        returned.setReturned(true);
+        entityManager.flush();
+        entityManager.clear();
+
+        int updated = repository.markReturned(List.of(open.getId(), returned.getId()));
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(1);
+        Loan found = entityManager.find(Loan.class, open.getId());
+        assertThat(found.getReturned()).isTrue();
+        assertThat(found.getActiveBookId()).isNull();
+        assertThat(repository.findOpenStatesByBookIsbnIn(List.of("001", "002"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve devolver e reabrir um empréstimo com um único update apenas quando o status muda")
+    public void returnAndReopenByIdTest(){
+        Loan loan = createAndPersistLoan();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(repository.reopenById(loan.getId())).isZero();
+        assertThat(repository.returnById(loan.getId())).isEqualTo(1);
+        assertThat(repository.returnById(loan.getId())).isZero();
+        entityManager.clear();
+        assertThat(entityManager.find(Loan.class, loan.getId()).getActiveBookId()).isNull();
+
+        assertThat(repository.reopenById(loan.getId())).isEqualTo(1);
+        entityManager.clear();
+        Loan reopened = entityManager.find(Loan.class, loan.getId());
+        assertThat(reopened.getReturned()).isFalse();
+        assertThat(reopened.getActiveBookId()).isEqualTo(loan.getBook().getId());
+        assertThat(repository.returnById(-1L)).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos pelo isbn do livro ou customer direto em projeções")
+    public void findViewsByBookIsbnOrCustomerTest(){
+        Loan byIsbn = createAndPersistLoan("1234");
+        Loan byCustomer = createAndPersistLoan("9999");
+        Loan other = createAndPersistLoan("5555");
+        other.setCustomer("Fulano");
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<LoanView> page = repository.findViewsByBookIsbnOrCustomer(
+                "1234", "Jhony", PageRequest.of(0, 10, Sort.by("id")));
+
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(LoanView::getId).containsExactly(byIsbn.getId(), byCustomer.getId());
+        assertThat(page.getContent().get(1).getBook().getIsbn()).isEqualTo("9999");
+    }
+
+    @Test
+    @DisplayName("Deve ordenar a busca pelo isbn do livro ou customer pelo nome da propriedade, desempatando pelo id")
+    public void findViewsByBookIsbnOrCustomerSortedByLoanDateTest(){
+        Loan older = createAndPersistLoan("1234");
+        older.setLoanDate(LocalDate.now().minusDays(2));
+        Loan sameDay = createAndPersistLoan("9999");
+        Loan sameDayToo = createAndPersistLoan("8888");
+        Loan newer = createAndPersistLoan("7777");
+        newer.setLoanDate(LocalDate.now().plusDays(1));
+        entityManager.flush();
+        entityManager.clear();
+
+        Page<LoanView> firstPage = repository.findViewsByBookIsbnOrCustomer(
+                "1234", "Jhony", PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "loanDate")));
+        Page<LoanView> secondPage = repository.findViewsByBookIsbnOrCustomer(
+                "1234", "Jhony", PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "loanDate")));
+
+        assertThat(firstPage.getTotalElements()).isEqualTo(4);
+        assertThat(firstPage.getContent()).extracting(LoanView::getId).containsExactly(newer.getId(), sameDay.getId());
+        assertThat(secondPage.getContent()).extracting(LoanView::getId).containsExactly(sameDayToo.getId(), older.getId());
+    }
+
+    @Test
+    @DisplayName("Deve fatiar a busca pelo isbn do livro ou customer na mesma ordem, sem contar o total")
+    public void findViewSliceByBookIsbnOrCustomerSortedByLoanDateTest(){
+        Loan older = createAndPersistLoan("1234");
+        older.setLoanDate(LocalDate.now().minusDays(2));
+        Loan sameDay = createAndPersistLoan("9999");
+        Loan sameDayToo = createAndPersistLoan("8888");
+        entityManager.flush();
+        entityManager.clear();
+
+        Slice<LoanView> firstSlice = repository.findViewSliceByBookIsbnOrCustomer(
+                "1234", "Jhony", PageRequest.of(0, 2, Sort.by("loanDate")));
+        Slice<LoanView> secondSlice = repository.findViewSliceByBookIsbnOrCustomer(
+                "1234", "Jhony", PageRequest.of(1, 2, Sort.by("loanDate")));
+
+        assertThat(firstSlice.getContent()).extracting(LoanView::getId).containsExactly(older.getId(), sameDay.getId());
+        assertThat(firstSlice.hasNext()).isTrue();
+        assertThat(secondSlice.getContent()).extracting(LoanView::getId).containsExactly(sameDayToo.getId());
+        assertThat(secondSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos pelo isbn do livro ou customer paginando por cursor")
+    public void findByBookIsbnOrCustomerAfterTest(){
+        Loan first = createAndPersistLoan();
+        Loan second = createAndPersistLoan("9999");
+        Loan third = Loan.builder().customer("Fulano").book(first.getBook()).loanDate(LocalDate.now()).returned(true).build();
+        entityManager.persist(third);
+
+        KeysetSlice<Loan> firstSlice = repository.findByBookIsbnOrCustomerAfter(
+                "1234", "Jhony", KeysetCursor.first("id", Sort.Direction.ASC), 2);
+        KeysetSlice<Loan> secondSlice = repository.findByBookIsbnOrCustomerAfter(
+                "1234", "Jhony", firstSlice.getNext(), 2);
+
+        assertThat(firstSlice.getContent()).containsExactly(first, second);
+        assertThat(secondSlice.getContent()).containsExactly(third);
+        assertThat(secondSlice.hasNext()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve paginar empréstimos por cursor na ordem da data atravessando datas nulas")
+    public void findByCustomerAfterAcrossNullLoanDatesTest(){
+        Loan undated = createAndPersistLoan("001");
+        undated.setLoanDate(null);
+        Loan older = createAndPersistLoan("002");
+        older.setLoanDate(LocalDate.now().minusDays(1));
+        Loan undatedToo = createAndPersistLoan("003");
+        undatedToo.setLoanDate(null);
+        Loan newer = createAndPersistLoan("004");
+        entityManager.flush();
+
+        List<Loan> loans = new ArrayList<>();
+        KeysetCursor cursor = KeysetCursor.first("loanDate", Sort.Direction.DESC);
+        do {
+            KeysetSlice<Loan> slice = repository.findByBookIsbnOrCustomerAfter(null, "Jhony", cursor, 1);
+            loans.addAll(slice.getContent());
+            cursor = slice.hasNext() ? KeysetCursor.decode(slice.getNext().encode()) : null;
+        } while (cursor != null);
+
+        assertThat(loans).containsExactly(newer, older, undatedToo, undated);
     }
 
     private Loan createAndPersistLoan() {
+        return createAndPersistLoan(createBook().getIsbn());
+    }
+
+    private Loan createAndPersistLoan(String isbn) {
         Book book = createBook();
+        book.setIsbn(isbn);
         entityManager.persist(book);
 
         Loan loan = Loan.builder().customer("Jhony").book(book).loanDate(LocalDate.now()).build();
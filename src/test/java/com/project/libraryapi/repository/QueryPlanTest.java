@@ -0,0 +1,152 @@
+package com.project.libraryapi.repository;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.repository.BookRepository;
+import com.project.libraryapi.model.repository.LoanRepository;
+import com.project.libraryapi.model.repository.OverdueLoanRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs each repository query, captures the SQL Hibernate sent and checks the H2
+ * {@code EXPLAIN} output for index usage instead of table scans.
+ */
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.project.libraryapi.repository.QueryPlanTest$CapturingInspector")
+public class QueryPlanTest {
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    OverdueLoanRepository overdueLoanRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp(){
+        CapturingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("Deve buscar livro pelo isbn usando o índice único")
+    public void findByIsbnUsesIndexTest(){
+        bookRepository.findByIsbn("123");
+
+        assertThat(explainLast("123")).contains("UX_BOOK_ISBN").doesNotContain("tableScan");
+    }
+
+    @Test
+    @DisplayName("Deve verificar a existência do isbn usando o índice único")
+    public void existsByIsbnUsesIndexTest(){
+        bookRepository.existsByIsbn("123");
+
+        assertThat(explainLast("123")).contains("UX_BOOK_ISBN").doesNotContain("tableScan");
+    }
+
+    @Test
+    @DisplayName("Deve verificar empréstimo ativo usando o índice composto")
+    public void existsByBookAndNotReturnedUsesIndexTest(){
+        loanRepository.existsByBookAndNotReturned(Book.builder().id(1L).version(0L).build());
+
+        assertThat(explainLast(1L)).contains("IX_LOAN_BOOK_RETURNED").doesNotContain("tableScan");
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos por isbn ou customer usando os índices")
+    public void findByBookIsbnOrCustomerUsesIndexesTest(){
+        loanRepository.findViewsByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+
+        List<String> plans = new ArrayList<>();
+        for (String sql : CapturingInspector.STATEMENTS)
+            if (sql.toLowerCase().contains("union"))
+                plans.add(explain(sql, "123", "Fulano"));
+
+        assertThat(plans).isNotEmpty().allSatisfy(plan -> assertThat(plan)
+                .contains("UX_BOOK_ISBN")
+                .contains("IX_LOAN_CUSTOMER")
+                .doesNotContain("tableScan"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos apenas por isbn usando o índice único do livro")
+    public void findByBookIsbnUsesIndexTest(){
+        loanRepository.findViewsByBookIsbn("123", PageRequest.of(0, 10));
+
+        assertThat(explainLast("123")).contains("UX_BOOK_ISBN").doesNotContain("tableScan");
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos apenas por customer usando o índice de customer")
+    public void findByCustomerUsesIndexTest(){
+        loanRepository.findViewsByCustomer("Fulano", PageRequest.of(0, 10));
+
+        assertThat(explainLast("Fulano")).contains("IX_LOAN_CUSTOMER").doesNotContain("tableScan");
+    }
+
+    @Test
+    @DisplayName("Deve buscar os limites dos empréstimos atrasados usando o índice de devolução e data")
+    public void findMinOverdueIdUsesIndexTest(){
+        LocalDate cutoff = LocalDate.now().minusDays(14);
+        loanRepository.findMinOverdueId(cutoff);
+
+        assertThat(explainLast(cutoff)).contains("IX_LOAN_RETURNED_LOAN_DATE").doesNotContain("tableScan");
+    }
+
+    @Test
+    @DisplayName("Deve copiar os empréstimos atrasados de um intervalo de ids sem varrer a tabela")
+    public void insertOverdueInRangeUsesIndexTest(){
+        LocalDate cutoff = LocalDate.now().minusDays(14);
+        overdueLoanRepository.insertOverdueInRange(cutoff, 0L, 1000L);
+
+        assertThat(explainLast(cutoff, 0L, 1000L)).doesNotContain("tableScan");
+    }
+
+    private String explainLast(Object... values) {
+        assertThat(CapturingInspector.STATEMENTS).isNotEmpty();
+        return explain(CapturingInspector.STATEMENTS.get(CapturingInspector.STATEMENTS.size() - 1), values);
+    }
+
+    /**
+     * Binds the given values to the first parameters and 1 to the rest, which are
+     * the row limits Hibernate adds.
+     */
+    private String explain(String sql, Object... values) {
+        int parameters = (int) sql.chars().filter(c -> c == '?').count();
+        List<Object> args = new ArrayList<>(Arrays.asList(values).subList(0, Math.min(values.length, parameters)));
+        while (args.size() < parameters)
+            args.add(1);
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, args.toArray());
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
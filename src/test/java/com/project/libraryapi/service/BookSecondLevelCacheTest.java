@@ -0,0 +1,207 @@
+package com.project.libraryapi.service;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.repository.BookRepository;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreLoadEvent;
+import org.hibernate.event.spi.PreLoadEventListener;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest
+public class BookSecondLevelCacheTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp(){
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        statistics = sessionFactory.getStatistics();
+        PausingLoadListener.registerWith(sessionFactory);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve servir leituras repetidas de um livro e da busca por ISBN a partir do cache")
+    public void cachedReadsTest(){
+        Book book = bookService.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        bookService.findById(book.getId());
+        bookRepository.findByIsbn("123");
+        statistics.clear();
+
+        assertThat(bookService.findById(book.getId())).map(Book::getTitle).contains("As aventuras");
+        assertThat(bookRepository.findByIsbn("123")).map(Book::getId).contains(book.getId());
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(2);
+        assertThat(statistics.getQueryRegionStatistics(BookRepository.ISBN_QUERY_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Não deve servir um livro desatualizado depois de atualizá-lo")
+    public void updatedBookNotStaleTest(){
+        Book book = bookService.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        Book cached = bookService.findById(book.getId()).get();
+        bookRepository.findByIsbn("123");
+
+        cached.setTitle("Viajando o mundo");
+        cached.setIsbn("456");
+        bookService.updateBook(cached);
+
+        assertThat(bookService.findById(book.getId()))
+                .hasValueSatisfying(found -> {
+                    assertThat(found.getTitle()).isEqualTo("Viajando o mundo");
+                    assertThat(found.getVersion()).isEqualTo(1L);
+                });
+        assertThat(bookRepository.findByIsbn("123")).isEmpty();
+        assertThat(bookRepository.findByIsbn("456")).map(Book::getTitle).contains("Viajando o mundo");
+    }
+
+    @Test
+    @DisplayName("Deve atualizar parcialmente um livro descartando apenas sua entrada do cache")
+    public void patchedBookNotStaleTest(){
+        Book book = bookService.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        Book other = bookService.save(Book.builder().isbn("456").author("Ciclano").title("Viajando o mundo").build());
+        bookService.findById(book.getId());
+        bookService.findById(other.getId());
+
+        assertThat(bookService.patchBook(book.getId(), "Novas aventuras", null, List.of(0L)))
+                .map(BookVersion::getVersion).contains(1L);
+        assertThat(bookService.patchBook(book.getId(), null, "Beltrano", List.of(0L))).isEmpty();
+        statistics.clear();
+
+        assertThat(bookService.findById(other.getId())).map(Book::getTitle).contains("Viajando o mundo");
+        assertThat(bookService.findById(book.getId()))
+                .hasValueSatisfying(found -> {
+                    assertThat(found.getTitle()).isEqualTo("Novas aventuras");
+                    assertThat(found.getAuthor()).isEqualTo("Fulano");
+                    assertThat(found.getVersion()).isEqualTo(1L);
+                });
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Não deve carregar o catálogo inteiro no cache ao percorrê-lo")
+    public void forEachBookBypassesCacheTest(){
+        Book book = bookService.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        bookService.save(Book.builder().isbn("456").author("Ciclano").title("Viajando o mundo").build());
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        List<String> titles = new ArrayList<>();
+        bookRepository.forEachBook(found -> titles.add(found.getTitle()));
+
+        assertThat(titles).containsExactly("As aventuras", "Viajando o mundo");
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getPutCount()).isZero();
+        assertThat(entityManagerFactory.getCache().contains(Book.class, book.getId())).isFalse();
+    }
+
+    @Test
+    @DisplayName("Não deve guardar no cache um livro lido durante uma atualização parcial concorrente")
+    public void loadDuringPatchNotCachedTest() throws Exception {
+        Book book = bookService.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        entityManagerFactory.getCache().evict(Book.class, book.getId());
+        PausingLoadListener.pauseNextLoad(book.getId());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<Book>> load = executor.submit(() -> bookService.findById(book.getId()));
+            assertThat(PausingLoadListener.loaded.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(bookService.patchBook(book.getId(), "Novas aventuras", null, null)).isPresent();
+            PausingLoadListener.resume.countDown();
+
+            assertThat(load.get(10, TimeUnit.SECONDS)).map(Book::getTitle).contains("As aventuras");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(bookService.findById(book.getId())).map(Book::getTitle).contains("Novas aventuras");
+    }
+
+    @Test
+    @DisplayName("Não deve servir um livro depois de deletá-lo")
+    public void deletedBookNotStaleTest(){
+        Book book = bookService.save(Book.builder().isbn("123").author("Fulano").title("As aventuras").build());
+        bookService.findById(book.getId());
+        bookRepository.findByIsbn("123");
+
+        bookService.delete(book);
+
+        assertThat(bookService.findById(book.getId())).isEmpty();
+        assertThat(bookRepository.findByIsbn("123")).isEmpty();
+    }
+
+    /**
+     * Holds one load of a book after it read the row and before it caches it, so a
+     * test can change the row in between.
+     */
+    static class PausingLoadListener implements PreLoadEventListener {
+
+        private static SessionFactoryImplementor registeredWith;
+        private static volatile Long pausedId;
+        static CountDownLatch loaded;
+        static CountDownLatch resume;
+
+        static synchronized void registerWith(SessionFactoryImplementor sessionFactory) {
+            if (registeredWith == sessionFactory)
+                return;
+            sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class)
+                    .appendListeners(EventType.PRE_LOAD, new PausingLoadListener());
+            registeredWith = sessionFactory;
+        }
+
+        static void pauseNextLoad(Long id) {
+            loaded = new CountDownLatch(1);
+            resume = new CountDownLatch(1);
+            pausedId = id;
+        }
+
+        @Override
+        public void onPreLoad(PreLoadEvent event) {
+            if (!(event.getEntity() instanceof Book) || !event.getId().equals(pausedId))
+                return;
+            pausedId = null;
+            loaded.countDown();
+            try {
+                resume.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -3,7 +3,17 @@ package com.project.libraryapi.service;
 import com.project.libraryapi.exception.BusinessException;
 import com.project.libraryapi.model.repository.BookRepository;
 import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.projection.BookVersion;
+import com.project.libraryapi.model.projection.BookView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
+import com.project.libraryapi.service.cache.BookLoadCoalescer;
+import com.project.libraryapi.service.cache.BookVersionCache;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import com.project.libraryapi.service.cache.IsbnBloomFilter;
+import com.project.libraryapi.service.cache.IsbnCache;
 import com.project.libraryapi.service.impl.BookServiceImpl;
+import com.project.libraryapi.service.search.BookSearchIndex;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -11,13 +21,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -26,12 +47,75 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 public class BookServiceTest {
 
     BookService service;
+    BookSearchIndex searchIndex;
+    IsbnBloomFilter isbnFilter;
+    BookLoadCoalescer loads;
+    BusinessMetrics metrics;
     @MockBean
     BookRepository repository;
 
     @BeforeEach
     public void setUp(){
-        this.service = new BookServiceImpl(repository);
+        this.searchIndex = new BookSearchIndex(repository, true);
+        this.isbnFilter = new IsbnBloomFilter(repository, true, 100, 0.01);
+        this.loads = new BookLoadCoalescer();
+        this.metrics = new BusinessMetrics();
+        this.service = new BookServiceImpl(repository, searchIndex, new IsbnCache(100, Duration.ofMinutes(10)), isbnFilter,
+                new BookVersionCache(100, Duration.ofMinutes(1)), loads, metrics);
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco uma única vez para uma rajada de buscas do mesmo livro")
+    public void coalescedFindByIdTest() throws Exception {
+        int callers = 16;
+        Book book = createSavedBook("1234", "Artur", "Viajando o mundo");
+        Mockito.when(repository.findById(book.getId())).thenAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (loads.coalesced() < callers - 1 && System.nanoTime() < deadline)
+                Thread.onSpinWait();
+            return Optional.of(book);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Optional<Book>>> lookups = new ArrayList<>();
+            for (int i = 0; i < callers; i++)
+                lookups.add(executor.submit(() -> service.findById(book.getId())));
+            for (Future<Optional<Book>> lookup : lookups)
+                assertThat(lookup.get(10, TimeUnit.SECONDS).map(Book::getIsbn)).contains("1234");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Mockito.verify(repository, Mockito.times(1)).findById(book.getId());
+        assertThat(loads.coalesced()).isEqualTo(callers - 1);
+    }
+
+    @Test
+    @DisplayName("Deve consultar o banco uma única vez para uma rajada de buscas do mesmo ISBN")
+    public void coalescedFindByIsbnTest() throws Exception {
+        int callers = 16;
+        Book book = createSavedBook("1234", "Artur", "Viajando o mundo");
+        Mockito.when(repository.findByIsbn("1234")).thenAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (loads.coalesced() < callers - 1 && System.nanoTime() < deadline)
+                Thread.onSpinWait();
+            return Optional.of(book);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Optional<Book>>> lookups = new ArrayList<>();
+            for (int i = 0; i < callers; i++)
+                lookups.add(executor.submit(() -> service.findByIsbn("1234")));
+            for (Future<Optional<Book>> lookup : lookups)
+                assertThat(lookup.get(10, TimeUnit.SECONDS).map(Book::getId)).contains(book.getId());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Mockito.verify(repository, Mockito.times(1)).findByIsbn("1234");
+        assertThat(loads.coalesced()).isEqualTo(callers - 1);
     }
 
     @Test
@@ -53,6 +137,34 @@ public class BookServiceTest {
 
     }
 
+    @Test
+    @DisplayName("Não deve consultar o banco quando o filtro de Bloom garante que o ISBN é novo")
+    public void saveBookSkipsExistsQueryWhenFilterSaysAbsentTest(){
+        isbnFilter.rebuild();
+        Book book = createBook();
+        Mockito.when(repository.save(book)).thenReturn(createSavedBook("1234", "Artur", "Viajando o mundo"));
+
+        service.save(book);
+
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+        assertThat(isbnFilter.mightContain("1234")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio quando a constraint única do ISBN for violada")
+    public void saveBookWithConcurrentDuplicatedIsbnTest(){
+        isbnFilter.rebuild();
+        Book book = createBook();
+        Mockito.when(repository.save(book)).thenThrow(new DataIntegrityViolationException("unique isbn"));
+
+        Throwable exception = Assertions.catchThrowable(() -> service.save(book));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("ISBN already registered.");
+        assertThat(metrics.duplicateIsbns()).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("Deve lançar erro de negócio ao tentar salvar livro com ISBN já existente")
     public void shouldNotSavedBookWithDuplicatedISBN(){
@@ -64,10 +176,54 @@ public class BookServiceTest {
         assertThat(exception)
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("ISBN already registered.");
+        assertThat(metrics.duplicateIsbns()).isEqualTo(1);
 
         Mockito.verify(repository, Mockito.never()).save(book);
     }
 
+    @Test
+    @DisplayName("Deve salvar em lote apenas os livros com ISBN ainda não cadastrado")
+    public void saveAllBooksTest(){
+        Book registered = createBook();
+        Book newBook = createSavedBook("5678", "Fulano", "As Aventuras");
+        newBook.setId(null);
+        Book repeated = createSavedBook("5678", "Fulano", "As Aventuras");
+        repeated.setId(null);
+        List<Book> books = Arrays.asList(registered, newBook, repeated);
+
+        Mockito.when(repository.findRegisteredIsbns(Mockito.anyCollection())).thenReturn(Set.of("1234"));
+        Mockito.when(repository.insertAll(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Book> savedBooks = service.saveAll(books);
+
+        assertThat(savedBooks).isEqualTo(List.of(newBook));
+        Mockito.verify(repository, Mockito.times(1)).findRegisteredIsbns(Set.of("1234", "5678"));
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache de ISBN do lote importado só depois do commit")
+    public void saveAllInvalidatesAfterCommitTest(){
+        Book newBook = createSavedBook("5678", "Fulano", "As Aventuras");
+        Mockito.when(repository.findRegisteredIsbns(Mockito.anyCollection())).thenReturn(Set.of());
+        Mockito.when(repository.insertAll(Mockito.anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        Mockito.when(repository.findByIsbn("5678")).thenReturn(Optional.empty(), Optional.of(newBook));
+        searchIndex.rebuild();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.saveAll(List.of(newBook));
+            assertThat(service.findByIsbn("5678")).isEmpty();
+            Assertions.assertThat(searchIndex.search("aventuras", null, 0, 10).getTotal()).isZero();
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(service.findByIsbn("5678")).isPresent();
+        Assertions.assertThat(searchIndex.search("aventuras", null, 0, 10).getIds()).containsExactly(newBook.getId());
+    }
+
     @Test
     @DisplayName("Deve obter um livro por Id")
     public void getBookByIdTest(){
@@ -94,6 +250,26 @@ public class BookServiceTest {
         assertThat(book.isPresent()).isFalse();
     }
 
+    @Test
+    @DisplayName("Deve guardar a versão dos livros lidos e atualizados e descartá-la ao deletar")
+    public void cachedVersionTest(){
+        Book book = createSavedBook("1234", "Artur", "As aventuras");
+        book.setVersion(0L);
+        Book updatedBook = book.toBuilder().version(1L).build();
+        Mockito.when(repository.findById(1L)).thenReturn(Optional.of(book));
+        Mockito.when(repository.save(book)).thenReturn(updatedBook);
+
+        service.findById(1L);
+        Optional<BookVersion> read = service.findCachedVersion(1L);
+        service.updateBook(book);
+        Optional<BookVersion> updated = service.findCachedVersion(1L);
+        service.delete(updatedBook);
+
+        assertThat(read).map(BookVersion::getVersion).contains(0L);
+        assertThat(updated).map(BookVersion::getVersion).contains(1L);
+        assertThat(service.findCachedVersion(1L)).isEmpty();
+    }
+
     @Test
     @DisplayName("Deve deletar um livro")
     public void deleteBookTest(){
@@ -149,22 +325,77 @@ public class BookServiceTest {
     public void findBookByFiltersTest(){
         Book book = createBook();
         PageRequest pageRequest = PageRequest.of(0, 10);
-        List<Book> bookList = Arrays.asList(book);
-        Page<Book> page = new PageImpl<Book>(bookList, pageRequest, 1);
+        List<BookView> bookList = List.of(new BookView(1L, book.getTitle(), book.getAuthor(), book.getIsbn()));
+        Page<BookView> page = new PageImpl<BookView>(bookList, pageRequest, 1);
 
-        Mockito.when(repository.findAll(Mockito.any(Example.class), Mockito.any(PageRequest.class)))
-                .thenReturn(page);
+        Mockito.when(repository.findViewsByFilters(book, pageRequest)).thenReturn(page);
 
-        Page<Book> pageResult = service.findByFilters(book, pageRequest);
+        Page<BookView> pageResult = service.findViewsByFilters(book, pageRequest);
 
         assertThat(pageResult.getTotalElements()).isEqualTo(1);
         assertThat(pageResult.getContent()).isEqualTo(bookList);
-        assertThat(pageResult.getContent().size()).isEqualTo(1);
         assertThat(pageResult.getContent().get(0).getTitle()).isEqualTo(book.getTitle());
         assertThat(pageResult.getPageable().getPageNumber()).isEqualTo(0);
         assertThat(pageResult.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve filtrar livros pelo índice de busca quando ele estiver pronto")
+    public void findBookByFiltersWithSearchIndexTest(){
+        Book first = createSavedBook("1234", "Artur", "Viajando o mundo");
+        Book second = createSavedBook("5678", "Fulano", "O mundo");
+        second.setId(2L);
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            action.accept(first);
+            action.accept(second);
+            return null;
+        }).when(repository).forEachBook(Mockito.any());
+        BookView firstView = new BookView(1L, first.getTitle(), first.getAuthor(), first.getIsbn());
+        BookView secondView = new BookView(2L, second.getTitle(), second.getAuthor(), second.getIsbn());
+        Mockito.when(repository.findViewsByIdIn(List.of(2L, 1L))).thenReturn(List.of(firstView, secondView));
+        searchIndex.rebuild();
+
+        Page<BookView> pageResult = service.findViewsByFilters(Book.builder().title("MUNDO").build(), PageRequest.of(0, 10));
+
+        assertThat(pageResult.getTotalElements()).isEqualTo(2);
+        Assertions.assertThat(pageResult.getContent()).containsExactly(secondView, firstView);
+        Mockito.verify(repository, Mockito.never()).findViewsByFilters(Mockito.any(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve manter o índice de busca atualizado ao salvar, atualizar e deletar livros")
+    public void searchIndexFollowsWritesTest(){
+        Book book = createSavedBook("1234", "Artur", "Viajando o mundo");
+        Mockito.when(repository.save(Mockito.any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        searchIndex.rebuild();
+
+        service.save(book);
+        Assertions.assertThat(searchIndex.search("viajando", null, 0, 10).getIds()).containsExactly(1L);
+
+        book.setTitle("As Aventuras");
+        service.updateBook(book);
+        assertThat(searchIndex.search("viajando", null, 0, 10).getTotal()).isZero();
+        Assertions.assertThat(searchIndex.search("aventuras", null, 0, 10).getIds()).containsExactly(1L);
+
+        service.delete(book);
+        assertThat(searchIndex.search("aventuras", null, 0, 10).getTotal()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros paginando por cursor")
+    public void findBookByFiltersAfterTest(){
+        Book book = createBook();
+        KeysetCursor cursor = KeysetCursor.first("title", Sort.Direction.ASC);
+        KeysetSlice<Book> slice = new KeysetSlice<>(List.of(book), null);
+
+        Mockito.when(repository.findByFiltersAfter(book, cursor, 10)).thenReturn(slice);
+
+        KeysetSlice<Book> result = service.findByFiltersAfter(book, cursor, 10);
+
+        assertThat(result).isEqualTo(slice);
+    }
+
     @Test
     @DisplayName("Deve buscar um livro por ISBN")
     public void findByIsbnTest(){
@@ -182,6 +413,46 @@ public class BookServiceTest {
         Mockito.verify(repository, Mockito.times(1)).findByIsbn(book.getIsbn());
     }
 
+    @Test
+    @DisplayName("Deve reaproveitar a busca por ISBN, inclusive quando o livro não existe")
+    public void findByIsbnCachedTest(){
+        Book book = createSavedBook("1234", "Artur", "Viajando o mundo");
+        Mockito.when(repository.findByIsbn("1234")).thenReturn(Optional.of(book));
+        Mockito.when(repository.findByIsbn("5678")).thenReturn(Optional.empty());
+
+        service.findByIsbn("1234");
+        Optional<Book> foundBook = service.findByIsbn("1234");
+        service.findByIsbn("5678");
+        Optional<Book> notFoundBook = service.findByIsbn("5678");
+
+        assertThat(foundBook).contains(book);
+        assertThat(foundBook.get()).isNotSameAs(book);
+        assertThat(notFoundBook).isEmpty();
+        Mockito.verify(repository, Mockito.times(1)).findByIsbn("1234");
+        Mockito.verify(repository, Mockito.times(1)).findByIsbn("5678");
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache de ISBN ao salvar, atualizar e deletar livros")
+    public void isbnCacheInvalidationTest(){
+        Book book = createSavedBook("1234", "Artur", "Viajando o mundo");
+        Mockito.when(repository.existsByIsbn("1234")).thenReturn(false);
+        Mockito.when(repository.findByIsbn("1234")).thenReturn(Optional.empty(), Optional.of(book), Optional.of(book), Optional.empty());
+        Mockito.when(repository.save(Mockito.any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(service.findByIsbn("1234")).isEmpty();
+        service.save(book);
+        assertThat(service.findByIsbn("1234")).isPresent();
+
+        book.setTitle("As Aventuras");
+        service.updateBook(book);
+        assertThat(service.findByIsbn("1234").get().getTitle()).isEqualTo("As Aventuras");
+
+        service.delete(book);
+        assertThat(service.findByIsbn("1234")).isEmpty();
+        Mockito.verify(repository, Mockito.times(4)).findByIsbn("1234");
+    }
+
     public static Book createBook() {
         return Book.builder()
                 .isbn("1234")
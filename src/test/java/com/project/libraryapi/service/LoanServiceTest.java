@@ -1,21 +1,32 @@
 package com.project.libraryapi.service;
 
 import com.project.libraryapi.api.dto.LoanInputDTO;
+import com.project.libraryapi.api.dto.LoanReturnDTO;
+import com.project.libraryapi.api.dto.LoanReturnResultDTO;
 import com.project.libraryapi.exception.BusinessException;
 import com.project.libraryapi.model.entity.Book;
 import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.projection.LoanState;
+import com.project.libraryapi.model.projection.LoanView;
+import com.project.libraryapi.model.repository.KeysetCursor;
+import com.project.libraryapi.model.repository.KeysetSlice;
 import com.project.libraryapi.model.repository.LoanRepository;
+import com.project.libraryapi.model.repository.OverdueLoanRepository;
 import com.project.libraryapi.service.impl.LoanServiceImpl;
+import com.project.libraryapi.service.metrics.BusinessMetrics;
+import com.project.libraryapi.service.registry.ActiveLoanRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -32,13 +43,20 @@ import static org.mockito.Mockito.*;
 public class LoanServiceTest {
 
     LoanService loanService;
+    ActiveLoanRegistry activeLoans;
+    BusinessMetrics metrics;
 
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    OverdueLoanRepository overdueLoanRepository;
+
     @BeforeEach
     public void setUp(){
-        this.loanService = new LoanServiceImpl(repository);
+        this.activeLoans = new ActiveLoanRegistry(repository, true);
+        this.metrics = new BusinessMetrics();
+        this.loanService = new LoanServiceImpl(repository, overdueLoanRepository, activeLoans, metrics);
     }
 
     @Test
@@ -71,10 +89,42 @@ public class LoanServiceTest {
         assertThat(exception)
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("Book already borrowed.");
+        assertThat(metrics.booksAlreadyBorrowed()).isEqualTo(1);
 
         verify(repository, never()).save(loan);
     }
 
+    @Test
+    @DisplayName("Deve lançar erro de negócio quando outro empréstimo ativo do livro vencer a corrida")
+    public void concurrentBorrowedBookSaveTest(){
+        Loan loan = createLoan();
+
+        when(repository.existsByBookAndNotReturned(loan.getBook())).thenReturn(false);
+        when(repository.save(loan)).thenThrow(new DataIntegrityViolationException("active_book_id"));
+
+        Throwable exception = catchThrowable(() -> loanService.save(loan));
+
+        assertThat(exception)
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Book already borrowed.");
+        assertThat(metrics.booksAlreadyBorrowed()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve usar o registro de empréstimos ativos no lugar da consulta ao banco")
+    public void registryBackedSaveTest(){
+        activeLoans.rebuild();
+        Loan loan = createLoan();
+        when(repository.save(loan)).thenReturn(loan);
+
+        loanService.save(loan);
+        Throwable exception = catchThrowable(() -> loanService.save(createLoan()));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already borrowed.");
+        assertThat(loanService.isAvailable(loan.getBook())).isFalse();
+        verify(repository, never()).existsByBookAndNotReturned(any());
+    }
+
     @Test
     @DisplayName("Deve obter as informações de um empréstimo pelo ID")
     public void findLoanByIdTest(){
@@ -95,41 +145,24 @@ public class LoanServiceTest {
         verify(repository).findById(loan.getId());
     }
 
-    @Test
-    @DisplayName("Deve atualizar um empréstimo")
-    public void updateLoanTest(){
-        Loan loan = createLoan();
-        loan.setId(1L);
-        loan.setReturned(true);
-
-        when(repository.save(Mockito.any(Loan.class))).thenReturn(loan);
-
-        Loan updatedLoan = loanService.update(loan);
-
-        assertThat(updatedLoan.getReturned()).isTrue();
-        verify(repository).save(loan);
-    }
-
     @Test
     @DisplayName("Deve filtrar empréstimos pelas propriedades")
     public void findLoanTest(){
         //cenário
-        Loan loan = createLoan();
-        loan.setId(1L);
-        loan.getBook().setIsbn("123");
+        LoanView loan = new LoanView(1L, "Jhony", 1L, "As aventuras", "Artur", "123");
 
-        List<Loan> loans = List.of(loan);
+        List<LoanView> loans = List.of(loan);
         PageRequest pageRequest = PageRequest.of(0,10);
         LoanInputDTO loanInputDTO = LoanInputDTO.builder().isbn("123").customer("Jhony").build();
-        Page<Loan> page = new PageImpl<Loan>(loans, pageRequest, loans.size());
+        Page<LoanView> page = new PageImpl<LoanView>(loans, pageRequest, loans.size());
 
-        Mockito.when(repository.findByBookIsbnOrCustomer(
+        Mockito.when(repository.findViewsByBookIsbnOrCustomer(
                 Mockito.anyString(),
                 Mockito.anyString(),
                 Mockito.any(Pageable.class))).thenReturn(page);
 
         //execução
-        Page<Loan> pageResult = loanService.find(loanInputDTO, pageRequest);
+        Page<LoanView> pageResult = loanService.findViews(loanInputDTO, pageRequest);
 
         //validações
         assertThat(pageResult.getTotalElements()).isEqualTo(1);
@@ -139,6 +172,111 @@ public class LoanServiceTest {
         assertThat(pageResult.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve usar a consulta indexada de cada filtro quando apenas um for informado")
+    public void findLoanBySingleFilterTest(){
+        PageRequest pageRequest = PageRequest.of(0,10);
+        when(repository.findViewsByBookIsbn("123", pageRequest)).thenReturn(Page.empty(pageRequest));
+        when(repository.findViewsByCustomer("Jhony", pageRequest)).thenReturn(Page.empty(pageRequest));
+
+        loanService.findViews(LoanInputDTO.builder().isbn("123").build(), pageRequest);
+        loanService.findViews(LoanInputDTO.builder().customer("Jhony").build(), pageRequest);
+        Page<LoanView> empty = loanService.findViews(new LoanInputDTO(), pageRequest);
+
+        verify(repository).findViewsByBookIsbn("123", pageRequest);
+        verify(repository).findViewsByCustomer("Jhony", pageRequest);
+        verify(repository, never()).findViewsByBookIsbnOrCustomer(any(), any(), any());
+        assertThat(empty.getContent()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve filtrar empréstimos paginando por cursor")
+    public void findLoanAfterTest(){
+        Loan loan = createLoan();
+        loan.setId(1L);
+        LoanInputDTO loanInputDTO = LoanInputDTO.builder().isbn("123").customer("Jhony").build();
+        KeysetCursor cursor = KeysetCursor.first("loanDate", Sort.Direction.DESC);
+        KeysetSlice<Loan> slice = new KeysetSlice<>(List.of(loan), cursor.after(loan));
+
+        when(repository.findByBookIsbnOrCustomerAfter("123", "Jhony", cursor, 10)).thenReturn(slice);
+
+        KeysetSlice<Loan> result = loanService.findAfter(loanInputDTO, cursor, 10);
+
+        assertThat(result.getContent()).containsExactly(loan);
+        assertThat(result.getNext().getLastId()).isEqualTo(1L);
+        assertThat(result.getNext().getLastSortValue()).isEqualTo(loan.getLoanDate().toString());
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimos em lote informando os desconhecidos e já devolvidos")
+    public void returnAllTest(){
+        activeLoans.add(1L);
+        activeLoans.add(3L);
+        when(repository.findStatesByIdIn(List.of(10L, 11L, 12L))).thenReturn(List.of(
+                new LoanState(10L, false, 1L, "001"),
+                new LoanState(11L, true, 2L, "002")));
+        when(repository.findOpenStatesByBookIsbnIn(List.of("003", "001", "004"))).thenReturn(List.of(
+                new LoanState(13L, false, 3L, "003"),
+                new LoanState(10L, false, 1L, "001")));
+        LoanReturnDTO dto = LoanReturnDTO.builder()
+                .ids(List.of(10L, 11L, 12L, 10L))
+                .isbns(List.of("003", "001", "004"))
+                .build();
+
+        LoanReturnResultDTO result = loanService.returnAll(dto);
+
+        assertThat(result.getReturned()).isEqualTo(2);
+        assertThat(result.getReturnedIds()).containsExactly(10L, 13L);
+        assertThat(result.getUnknownIds()).containsExactly(12L);
+        assertThat(result.getAlreadyReturnedIds()).containsExactly(11L);
+        assertThat(result.getNotBorrowedIsbns()).containsExactly("004");
+        verify(repository).markReturned(List.of(10L, 13L));
+        assertThat(activeLoans.contains(1L)).isFalse();
+        assertThat(activeLoans.contains(3L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve devolver um empréstimo por id liberando o livro no registro")
+    public void updateReturnedTest(){
+        activeLoans.add(1L);
+        Loan loan = createLoan();
+        loan.setId(10L);
+        when(repository.returnById(10L)).thenReturn(1);
+        when(repository.findById(10L)).thenReturn(Optional.of(loan));
+
+        assertThat(loanService.updateReturned(10L, true)).contains(loan);
+        assertThat(loanService.updateReturned(11L, true)).isEmpty();
+
+        assertThat(activeLoans.contains(1L)).isFalse();
+        verify(repository, never()).save(Mockito.any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Não deve liberar o livro no registro ao devolver de novo um empréstimo já devolvido")
+    public void returnAlreadyReturnedTest(){
+        activeLoans.add(1L);
+        Loan loan = createLoan();
+        loan.setId(10L);
+        loan.setReturned(true);
+        when(repository.returnById(10L)).thenReturn(0);
+        when(repository.findById(10L)).thenReturn(Optional.of(loan));
+
+        assertThat(loanService.updateReturned(10L, true)).contains(loan);
+
+        assertThat(activeLoans.contains(1L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de negócio ao reabrir empréstimo de livro emprestado novamente")
+    public void reopenBorrowedBookTest(){
+        when(repository.reopenById(10L)).thenThrow(new DataIntegrityViolationException("active_book_id"));
+
+        Throwable exception = catchThrowable(() -> loanService.updateReturned(10L, false));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already borrowed.");
+        assertThat(metrics.booksAlreadyBorrowed()).isEqualTo(1);
+    }
+
     public static Loan createLoan() {
         return Loan.builder()
                 .customer("Jhony")
@@ -0,0 +1,50 @@
+package com.project.libraryapi.service.cache;
+
+import com.project.libraryapi.model.projection.BookVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookVersionCacheTest {
+
+    AtomicLong nanos;
+    BookVersionCache cache;
+
+    @BeforeEach
+    public void setUp(){
+        nanos = new AtomicLong();
+        cache = new BookVersionCache(10, Duration.ofMinutes(1), nanos::get);
+    }
+
+    @Test
+    @DisplayName("Deve guardar a última versão informada de cada livro")
+    public void putAndGetTest(){
+        cache.put(1L, new BookVersion(0L, Instant.EPOCH));
+        cache.put(1L, new BookVersion(1L, Instant.EPOCH));
+        cache.put(2L, new BookVersion(null, Instant.EPOCH));
+
+        assertThat(cache.get(1L)).map(BookVersion::getVersion).contains(1L);
+        assertThat(cache.get(2L)).isEmpty();
+        assertThat(cache.get(null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve esquecer versões invalidadas ou expiradas")
+    public void invalidateAndExpireTest(){
+        cache.put(1L, new BookVersion(0L, Instant.EPOCH));
+        cache.put(2L, new BookVersion(0L, Instant.EPOCH));
+
+        cache.invalidate(1L);
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(2));
+
+        assertThat(cache.get(1L)).isEmpty();
+        assertThat(cache.get(2L)).isEmpty();
+    }
+}
@@ -0,0 +1,71 @@
+package com.project.libraryapi.service.cache;
+
+import com.project.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnBloomFilterTest {
+
+    BookRepository repository = Mockito.mock(BookRepository.class);
+
+    @Test
+    @DisplayName("Deve considerar qualquer ISBN possivelmente existente antes de carregar o filtro")
+    public void notReadyFilterMightContainEverythingTest(){
+        IsbnBloomFilter filter = new IsbnBloomFilter(repository, true, 100, 0.01);
+
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightContain("123")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve carregar os ISBNs cadastrados sem falsos negativos")
+    @SuppressWarnings("unchecked")
+    public void rebuildWithoutFalseNegativesTest(){
+        Mockito.doAnswer(invocation -> {
+            Consumer<String> action = invocation.getArgument(0);
+            IntStream.range(0, 1_000).forEach(i -> action.accept("isbn-" + i));
+            return null;
+        }).when(repository).forEachIsbn(Mockito.any());
+        IsbnBloomFilter filter = new IsbnBloomFilter(repository, true, 100, 0.01);
+
+        filter.rebuild();
+
+        assertThat(filter.isReady()).isTrue();
+        assertThat(IntStream.range(0, 1_000).allMatch(i -> filter.mightContain("isbn-" + i))).isTrue();
+        assertThat(filter.filterCount()).isGreaterThan(1);
+    }
+
+    @Test
+    @DisplayName("Deve manter a taxa de falsos positivos abaixo da configurada ao crescer")
+    public void falsePositiveRateTest(){
+        IsbnBloomFilter filter = new IsbnBloomFilter(repository, true, 1_000, 0.01);
+        filter.rebuild();
+        IntStream.range(0, 10_000).forEach(i -> filter.add("isbn-" + i));
+
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("other-" + i))
+                .count();
+
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+    }
+
+    @Test
+    @DisplayName("Deve calcular a taxa observada de falsos positivos")
+    public void observedFalsePositiveRateTest(){
+        IsbnBloomFilter filter = new IsbnBloomFilter(repository, true, 100, 0.01);
+        filter.rebuild();
+
+        filter.mightContain("123");
+        filter.mightContain("456");
+        filter.mightContain("789");
+        filter.recordFalsePositive();
+
+        assertThat(filter.observedFalsePositiveRate()).isEqualTo(0.25);
+    }
+}
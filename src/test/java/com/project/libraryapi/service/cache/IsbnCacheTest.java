@@ -0,0 +1,112 @@
+package com.project.libraryapi.service.cache;
+
+import com.project.libraryapi.model.entity.Book;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsbnCacheTest {
+
+    AtomicLong nanos;
+    IsbnCache cache;
+
+    @BeforeEach
+    public void setUp(){
+        nanos = new AtomicLong();
+        cache = new IsbnCache(2, Duration.ofMinutes(10), nanos::get);
+    }
+
+    @Test
+    @DisplayName("Deve guardar buscas positivas e negativas contabilizando acertos e falhas")
+    public void hitAndMissStatsTest(){
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("123", isbn -> { loads.incrementAndGet(); return Optional.of(createBook(1L, isbn)); });
+        cache.get("123", isbn -> { loads.incrementAndGet(); return Optional.empty(); });
+        boolean exists = cache.exists("456", isbn -> { loads.incrementAndGet(); return false; });
+        boolean existsAgain = cache.exists("456", isbn -> { loads.incrementAndGet(); return true; });
+
+        assertThat(exists).isFalse();
+        assertThat(existsAgain).isFalse();
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.stats().hitCount()).isEqualTo(2);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Não deve guardar verificações de existência positivas, que não trazem o livro")
+    public void positiveExistsIsNotCachedTest(){
+        assertThat(cache.exists("123", isbn -> true)).isTrue();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve expirar as entradas após o tempo configurado")
+    public void expireAfterWriteTest(){
+        cache.get("123", isbn -> Optional.of(createBook(1L, isbn)));
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+        assertThat(cache.get("123", isbn -> Optional.empty())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve respeitar o tamanho máximo registrando as remoções")
+    public void maximumSizeTest(){
+        cache.get("1", isbn -> Optional.empty());
+        cache.get("2", isbn -> Optional.empty());
+        cache.get("3", isbn -> Optional.empty());
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.stats().evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar a entrada de um livro cujo ISBN mudou")
+    public void invalidateBookTest(){
+        cache.get("123", isbn -> Optional.of(createBook(1L, isbn)));
+
+        cache.invalidate(createBook(1L, "456"));
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve invalidar pelo id apenas as entradas do livro")
+    public void invalidateBookByIdTest(){
+        cache.get("123", isbn -> Optional.of(createBook(1L, isbn)));
+        cache.get("456", isbn -> Optional.of(createBook(2L, isbn)));
+
+        cache.invalidateBook(1L);
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("456", isbn -> Optional.empty())).isPresent();
+        assertThat(cache.trackedBooks()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve esquecer os livros das entradas expiradas ou removidas por tamanho")
+    public void evictedEntriesAreForgottenTest(){
+        cache.get("1", isbn -> Optional.of(createBook(1L, isbn)));
+        cache.get("2", isbn -> Optional.of(createBook(2L, isbn)));
+        cache.get("3", isbn -> Optional.of(createBook(3L, isbn)));
+        assertThat(cache.trackedBooks()).isEqualTo(2);
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(11));
+
+        assertThat(cache.trackedBooks()).isZero();
+    }
+
+    private Book createBook(Long id, String isbn) {
+        return Book.builder().id(id).isbn(isbn).title("Viajando o mundo").author("Kamilla").build();
+    }
+}
@@ -0,0 +1,103 @@
+package com.project.libraryapi.service.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    ExecutorService executor;
+    SingleFlight<String, List<String>> flight;
+
+    @BeforeEach
+    public void setUp(){
+        executor = Executors.newFixedThreadPool(CALLERS);
+        flight = new SingleFlight<>(ArrayList::new);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve executar uma única carga para chamadas simultâneas da mesma chave")
+    public void coalescesBurstTest() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+
+        List<List<String>> results = burst(() -> flight.load("123", () -> {
+            loads.incrementAndGet();
+            awaitCoalesced(CALLERS - 1);
+            return new ArrayList<>(List.of("As aventuras"));
+        }));
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(flight.loads()).isEqualTo(1);
+        assertThat(flight.coalesced()).isEqualTo(CALLERS - 1);
+        assertThat(results).hasSize(CALLERS).allSatisfy(result -> assertThat(result).containsExactly("As aventuras"));
+        Set<List<String>> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        instances.addAll(results);
+        assertThat(instances).hasSize(CALLERS);
+    }
+
+    @Test
+    @DisplayName("Deve carregar novamente depois que a carga anterior terminou")
+    public void loadsAgainAfterCompletionTest(){
+        AtomicInteger loads = new AtomicInteger();
+
+        flight.load("123", () -> List.of(String.valueOf(loads.incrementAndGet())));
+        List<String> second = flight.load("123", () -> List.of(String.valueOf(loads.incrementAndGet())));
+
+        assertThat(second).containsExactly("2");
+        assertThat(flight.coalesced()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve repassar o erro da carga a quem aguardava por ela")
+    public void propagatesFailureTest() throws Exception {
+        List<Future<Throwable>> failures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++)
+            failures.add(executor.submit(() -> catchThrowable(() -> flight.load("123", () -> {
+                awaitCoalesced(CALLERS - 1);
+                throw new IllegalStateException("database down");
+            }))));
+
+        for (Future<Throwable> failure : failures)
+            assertThat(failure.get(10, TimeUnit.SECONDS)).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+        assertThat(flight.loads()).isEqualTo(1);
+    }
+
+    private List<List<String>> burst(Callable<List<String>> call) throws Exception {
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++)
+            futures.add(executor.submit(call));
+        List<List<String>> results = new ArrayList<>();
+        for (Future<List<String>> future : futures)
+            results.add(future.get(10, TimeUnit.SECONDS));
+        return results;
+    }
+
+    private void awaitCoalesced(int callers) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (flight.coalesced() < callers && System.nanoTime() < deadline)
+            Thread.onSpinWait();
+    }
+}
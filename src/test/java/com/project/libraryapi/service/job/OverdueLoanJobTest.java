@@ -0,0 +1,150 @@
+package com.project.libraryapi.service.job;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.entity.JobCheckpoint;
+import com.project.libraryapi.model.entity.Loan;
+import com.project.libraryapi.model.entity.OverdueLoan;
+import com.project.libraryapi.model.repository.BookRepository;
+import com.project.libraryapi.model.repository.JobCheckpointRepository;
+import com.project.libraryapi.model.repository.LoanRepository;
+import com.project.libraryapi.model.repository.OverdueLoanRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "library.overdue-loans.chunk-size=2",
+        "library.overdue-loans.initial-delay=PT1H"
+})
+public class OverdueLoanJobTest {
+
+    @Autowired
+    OverdueLoanJob job;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    OverdueLoanRepository overdueLoanRepository;
+
+    @Autowired
+    JobCheckpointRepository checkpointRepository;
+
+    SimpleMeterRegistry registry;
+    Loan oldLoan;
+    Loan returnedLoan;
+    Loan recentLoan;
+    Loan otherOldLoan;
+    Loan lastOldLoan;
+
+    @BeforeEach
+    public void setUp(){
+        registry = new SimpleMeterRegistry();
+        job.bindTo(registry);
+        oldLoan = createLoan("001", 30, false);
+        returnedLoan = createLoan("002", 30, true);
+        recentLoan = createLoan("003", 1, false);
+        otherOldLoan = createLoan("004", 20, false);
+        lastOldLoan = createLoan("005", 15, false);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        checkpointRepository.save(JobCheckpoint.builder().name(OverdueLoanJob.NAME).build());
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve gravar no conjunto de atrasados apenas os empréstimos abertos há mais que o prazo")
+    public void runTest(){
+        double chunks = count("library.overdue.job.chunks");
+        double loans = count("library.overdue.job.loans");
+        overdueLoanRepository.save(new OverdueLoan(recentLoan.getId(), recentLoan.getLoanDate()));
+
+        job.run();
+
+        assertThat(overdueIds()).containsExactly(oldLoan.getId(), otherOldLoan.getId(), lastOldLoan.getId());
+        assertThat(checkpointRepository.findById(OverdueLoanJob.NAME).get().isRunning()).isFalse();
+        assertThat(count("library.overdue.job.chunks") - chunks).isEqualTo(3);
+        assertThat(count("library.overdue.job.loans") - loans).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve retomar uma execução interrompida a partir do checkpoint")
+    public void resumeTest(){
+        double runs = count("library.overdue.job.runs");
+        double chunks = count("library.overdue.job.chunks");
+        assertThat(job.processChunk(true)).isTrue();
+        JobCheckpoint checkpoint = checkpointRepository.findById(OverdueLoanJob.NAME).get();
+        assertThat(checkpoint.isRunning()).isTrue();
+        assertThat(checkpoint.getLastId()).isEqualTo(returnedLoan.getId());
+
+        job.run();
+
+        assertThat(overdueIds()).containsExactly(oldLoan.getId(), otherOldLoan.getId(), lastOldLoan.getId());
+        assertThat(checkpointRepository.findById(OverdueLoanJob.NAME).get().getStartedAt()).isEqualTo(checkpoint.getStartedAt());
+        assertThat(count("library.overdue.job.runs") - runs).isEqualTo(1);
+        assertThat(count("library.overdue.job.chunks") - chunks).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve remover do conjunto de atrasados os empréstimos devolvidos antes do primeiro atrasado")
+    public void removeReturnedBeforeFirstOverdueTest(){
+        overdueLoanRepository.save(new OverdueLoan(oldLoan.getId(), oldLoan.getLoanDate()));
+        oldLoan.setReturned(true);
+        loanRepository.save(oldLoan);
+
+        job.run();
+
+        assertThat(overdueIds()).containsExactly(otherOldLoan.getId(), lastOldLoan.getId());
+        assertThat(checkpointRepository.findById(OverdueLoanJob.NAME).get().getEndId()).isEqualTo(lastOldLoan.getId());
+    }
+
+    @Test
+    @DisplayName("Não deve iniciar uma nova execução ao continuar uma que já terminou")
+    public void noNewRunWhenResumingTest(){
+        double runs = count("library.overdue.job.runs");
+        job.run();
+
+        assertThat(job.processChunk(false)).isFalse();
+        assertThat(count("library.overdue.job.runs") - runs).isEqualTo(1);
+    }
+
+    private double count(String name) {
+        return registry.get(name).functionCounter().count();
+    }
+
+    private List<Long> overdueIds() {
+        return overdueLoanRepository.findAll()
+                .stream()
+                .map(OverdueLoan::getLoanId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private Loan createLoan(String isbn, int daysAgo, boolean returned) {
+        Book book = bookRepository.save(Book.builder().isbn(isbn).author("Fulano").title("As aventuras").build());
+        return loanRepository.save(Loan.builder()
+                .book(book)
+                .customer("Cliente " + isbn)
+                .loanDate(LocalDate.now().minusDays(daysAgo))
+                .returned(returned)
+                .build());
+    }
+}
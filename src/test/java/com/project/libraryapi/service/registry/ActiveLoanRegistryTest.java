@@ -0,0 +1,86 @@
+package com.project.libraryapi.service.registry;
+
+import com.project.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActiveLoanRegistryTest {
+
+    LoanRepository repository;
+    ActiveLoanRegistry registry;
+
+    @BeforeEach
+    public void setUp(){
+        repository = Mockito.mock(LoanRepository.class);
+        registry = new ActiveLoanRegistry(repository, true);
+    }
+
+    @Test
+    @DisplayName("Deve carregar os livros emprestados do banco")
+    public void rebuildTest(){
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Set.of(1L, 63L, 64L, 70_000L, 5_000_000_000L));
+
+        registry.rebuild();
+
+        assertThat(registry.isReady()).isTrue();
+        assertThat(registry.size()).isEqualTo(5);
+        assertThat(registry.contains(64L)).isTrue();
+        assertThat(registry.contains(5_000_000_000L)).isTrue();
+        assertThat(registry.contains(65L)).isFalse();
+        assertThat(registry.contains(2L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve adicionar e remover livros do registro")
+    public void addAndRemoveTest(){
+        registry.add(10L);
+        registry.add(10L);
+        registry.add(70_000L);
+        registry.remove(10L);
+
+        assertThat(registry.contains(10L)).isFalse();
+        assertThat(registry.contains(70_000L)).isTrue();
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve corrigir divergências com o banco na reconciliação")
+    public void reconcileTest(){
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Set.of(1L, 2L));
+        registry.rebuild();
+        registry.add(3L);
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Set.of(2L, 4L));
+
+        int drift = registry.reconcile();
+
+        assertThat(drift).isEqualTo(3);
+        assertThat(registry.contains(1L)).isFalse();
+        assertThat(registry.contains(2L)).isTrue();
+        assertThat(registry.contains(3L)).isFalse();
+        assertThat(registry.contains(4L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Não deve desfazer alterações feitas durante a reconciliação")
+    public void reconcileSkipsConcurrentChangesTest(){
+        Mockito.when(repository.findActiveBookIds()).thenReturn(Set.of(1L));
+        registry.rebuild();
+        Mockito.when(repository.findActiveBookIds()).thenAnswer(invocation -> {
+            registry.add(5L);
+            registry.remove(1L);
+            return Set.of(1L);
+        });
+
+        int drift = registry.reconcile();
+
+        assertThat(drift).isZero();
+        assertThat(registry.contains(1L)).isFalse();
+        assertThat(registry.contains(5L)).isTrue();
+    }
+}
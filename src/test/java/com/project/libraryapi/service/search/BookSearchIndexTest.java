@@ -0,0 +1,82 @@
+package com.project.libraryapi.service.search;
+
+import com.project.libraryapi.model.entity.Book;
+import com.project.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp(){
+        BookRepository repository = Mockito.mock(BookRepository.class);
+        Mockito.doAnswer(invocation -> {
+            Consumer<Book> action = invocation.getArgument(0);
+            action.accept(createBook(1L, "Viajando o mundo", "Kamilla"));
+            action.accept(createBook(2L, "Mundo", "Artur"));
+            action.accept(createBook(3L, "As Aventuras de Artur", "Fulano"));
+            action.accept(createBook(4L, "Submundo", "Artur Kamilla"));
+            return null;
+        }).when(repository).forEachBook(Mockito.any());
+        index = new BookSearchIndex(repository, true);
+        index.afterSingletonsInstantiated();
+    }
+
+    @Test
+    @DisplayName("Deve encontrar livros por trecho do título ignorando maiúsculas")
+    public void searchBySubstringIgnoringCaseTest(){
+        BookSearchIndex.SearchResult result = index.search("MUNDO", null, 0, 10);
+
+        assertThat(result.getTotal()).isEqualTo(3);
+        assertThat(result.getIds()).containsExactly(2L, 1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Deve combinar os filtros de título e autor")
+    public void searchByTitleAndAuthorTest(){
+        BookSearchIndex.SearchResult result = index.search("mundo", "artur", 0, 10);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getIds()).containsExactly(2L, 4L);
+    }
+
+    @Test
+    @DisplayName("Deve encontrar livros com termos menores que um trigrama")
+    public void searchShortQueryTest(){
+        BookSearchIndex.SearchResult result = index.search("de", null, 0, 10);
+
+        assertThat(result.getIds()).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Deve retornar apenas a janela pedida dos mais relevantes com o total de resultados")
+    public void searchTopKWindowTest(){
+        BookSearchIndex.SearchResult result = index.search(null, "artur", 1, 1);
+
+        assertThat(result.getTotal()).isEqualTo(2);
+        assertThat(result.getIds()).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualizações e remoções de livros")
+    public void indexUpdatesTest(){
+        index.index(createBook(2L, "Outro título", "Artur"));
+        index.remove(4L);
+
+        assertThat(index.search("mundo", null, 0, 10).getIds()).containsExactly(1L);
+        assertThat(index.search("outro", null, 0, 10).getIds()).containsExactly(2L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    private Book createBook(Long id, String title, String author) {
+        return Book.builder().id(id).title(title).author(author).isbn(String.valueOf(id)).build();
+    }
+}